@@ -0,0 +1,34 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks, the main class of benchmarks.jar
+ * <p>
+ * Takes the same arguments as the JMH command line, on top of them the allocation profiler is always on,
+ * the benchmark JVMs are headless, and the results are written to jmh-result.json unless another file is given,
+ * so runs from different releases can be compared
+ */
+public class BenchmarkRunner {
+	static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp() || commandLine.shouldList()) {
+			org.openjdk.jmh.Main.main(args); // Nothing to run, the JMH command line prints what was asked for
+			return;
+		}
+
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(GCProfiler.class)
+				.jvmArgsAppend("-Djava.awt.headless=true");
+		if (!commandLine.getResult().hasValue() && !commandLine.getResultFormat().hasValue()) {
+			options.result("jmh-result.json").resultFormat(ResultFormatType.JSON);
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,86 @@
+package benchmark;
+
+import engine.Grid;
+import engine.HintEngine;
+import engine.Minefield;
+import exceptions.BombException;
+
+import java.util.SplittableRandom;
+
+/**
+ * Makes the boards the benchmarks run on, the sizes are given as "rowsxcols", like "16x30"
+ */
+final class Boards {
+	static final long SEED = 42; // Every benchmark uses the same boards from run to run
+
+	private Boards() {
+	}
+
+	static int rows(String size) {
+		return Integer.parseInt(size.substring(0, size.indexOf('x')));
+	}
+
+	static int cols(String size) {
+		return Integer.parseInt(size.substring(size.indexOf('x') + 1));
+	}
+
+	static int bombs(String size, double density) {
+		return (int) Math.round(rows(size) * cols(size) * density);
+	}
+
+	/**
+	 * Finds the cell a player would click first
+	 *
+	 * @return the grid index of the start cell, or of the first safe cell if there is no start cell
+	 */
+	static int firstClick(Minefield minefield) {
+		int startCell = minefield.getStartCell();
+		if (startCell != -1) return startCell;
+
+		Grid grid = minefield.getGrid();
+		for (int i = 0; i < grid.size(); ++i) {
+			if (!grid.isBorder(i) && !minefield.isBomb(grid.row(i), grid.col(i))) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Makes a game that is half way done: the first click is made, then the cells the hints work out to be safe are revealed,
+	 * with a lucky guess whenever nothing is certain, until half the safe cells are revealed, then the bombs the hints work out are flagged
+	 *
+	 * @param seeded true to make a seeded game, which is saved as its seed and moves, false for one that is saved as the whole board
+	 * @return the game
+	 */
+	static Minefield halfPlayed(String size, double density, boolean seeded) {
+		int rows = rows(size), cols = cols(size), bombs = bombs(size, density);
+		Minefield minefield = (seeded) ? new Minefield(rows, cols, bombs, SEED) : new Minefield(rows, cols, bombs, new SplittableRandom(SEED));
+		Grid grid = minefield.getGrid();
+		int target = (rows * cols - bombs) / 2;
+
+		try {
+			int cell = firstClick(minefield);
+			minefield.reveal(grid.row(cell), grid.col(cell));
+
+			HintEngine hints = new HintEngine(minefield);
+			int next = 0; // Where to look for the next lucky guess
+			while (minefield.getNumRevealed() < target) {
+				cell = hints.getSafeCell();
+				if (cell == -1) {
+					// Nothing is certain, so guess, and always guess right, otherwise most boards would stop after a few moves
+					while (grid.isBorder(next) || minefield.isRevealed(grid.row(next), grid.col(next)) || minefield.isBomb(grid.row(next), grid.col(next))) ++next;
+					cell = next;
+				}
+				minefield.reveal(grid.row(cell), grid.col(cell));
+				hints.update();
+			}
+			for (int row = 0; row < rows; ++row) {
+				for (int col = 0; col < cols; ++col) {
+					if (hints.isBomb(row, col)) minefield.toggleFlag(row, col);
+				}
+			}
+		} catch (BombException ex) {
+			throw new IllegalStateException("A cell the hints worked out to be safe was a bomb", ex);
+		}
+		return minefield;
+	}
+}
@@ -0,0 +1,45 @@
+package benchmark;
+
+import engine.Minefield;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Making a new board: placing the bombs, working out the numbers and finding the start cell, what Board.generateField does
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+	@State(Scope.Thread)
+	public static class Size {
+		@Param({"9x9", "16x16", "16x30", "100x100", "500x500", "2000x2000"})
+		String size;
+
+		@Param({"0.12", "0.16", "0.21"})
+		double density;
+
+		int rows;
+		int cols;
+		int bombs;
+		long seed = Boards.SEED; // A different board every time, so the branches can't be learned
+
+		@Setup(Level.Trial)
+		public void setup() {
+			rows = Boards.rows(size);
+			cols = Boards.cols(size);
+			bombs = Boards.bombs(size, density);
+		}
+	}
+
+	@Benchmark
+	public void generate(Size size, Blackhole blackhole) {
+		Minefield minefield = new Minefield(size.rows, size.cols, size.bombs, size.seed++);
+		blackhole.consume(minefield.getStartCell());
+		blackhole.consume(minefield);
+	}
+}
@@ -0,0 +1,104 @@
+package benchmark;
+
+import engine.Grid;
+import engine.Minefield;
+import exceptions.BombException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two moves that reveal cells: the first click, which reveals the whole opening around the start cell,
+ * and a chord on a number next to the opening
+ * <p>
+ * A move can only be made once on a board, so every call gets a new board from a Level.Invocation setup.
+ * The setup isn't timed, even the smallest move takes microseconds, so the cost of the setup call itself makes little difference
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RevealBenchmark {
+	@State(Scope.Thread)
+	public static class FirstClick {
+		@Param({"9x9", "16x16", "16x30", "100x100", "500x500", "2000x2000"})
+		String size;
+
+		@Param({"0.12", "0.16", "0.21"})
+		double density;
+
+		long seed = Boards.SEED;
+		Minefield minefield;
+		int row;
+		int col;
+
+		@Setup(Level.Invocation)
+		public void setup() {
+			minefield = new Minefield(Boards.rows(size), Boards.cols(size), Boards.bombs(size, density), seed++);
+			Grid grid = minefield.getGrid();
+			int cell = Boards.firstClick(minefield);
+			row = grid.row(cell);
+			col = grid.col(cell);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Chord {
+		@Param({"9x9", "16x16", "16x30", "100x100", "500x500", "2000x2000"})
+		String size;
+
+		@Param({"0.12", "0.16", "0.21"})
+		double density;
+
+		long seed = Boards.SEED;
+		Minefield minefield;
+		int row = -1; // -1 if the board has no number to chord on
+		int col;
+
+		/**
+		 * Makes the first click, then finds a number next to the opening with hidden safe neighbors, and flags its bombs so it can be chorded
+		 */
+		@Setup(Level.Invocation)
+		public void setup() throws BombException {
+			minefield = new Minefield(Boards.rows(size), Boards.cols(size), Boards.bombs(size, density), seed++);
+			Grid grid = minefield.getGrid();
+			int cell = Boards.firstClick(minefield);
+			minefield.reveal(grid.row(cell), grid.col(cell));
+
+			row = -1;
+			int[] offsets = grid.getNeighborOffsets();
+			for (int i = 0; i < grid.size() && row == -1; ++i) {
+				if (grid.isBorder(i) || !minefield.isRevealed(grid.row(i), grid.col(i)) || minefield.getNumber(grid.row(i), grid.col(i)) == 0) continue;
+
+				for (int offset : offsets) {
+					int neighbor = i + offset;
+					if (!grid.isBorder(neighbor) && !minefield.isRevealed(grid.row(neighbor), grid.col(neighbor))
+							&& !minefield.isBomb(grid.row(neighbor), grid.col(neighbor))) {
+						row = grid.row(i);
+						col = grid.col(i);
+						break;
+					}
+				}
+			}
+			if (row == -1) return;
+
+			for (int offset : offsets) {
+				int neighbor = grid.index(row, col) + offset;
+				if (!grid.isBorder(neighbor) && minefield.isBomb(grid.row(neighbor), grid.col(neighbor))) {
+					minefield.toggleFlag(grid.row(neighbor), grid.col(neighbor));
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public boolean firstClick(FirstClick state) throws BombException {
+		return state.minefield.reveal(state.row, state.col);
+	}
+
+	@Benchmark
+	public boolean chord(Chord state) throws BombException {
+		return state.row != -1 && state.minefield.chord(state.row, state.col);
+	}
+}
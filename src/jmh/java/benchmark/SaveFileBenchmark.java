@@ -0,0 +1,59 @@
+package benchmark;
+
+import engine.Minefield;
+import engine.SaveFile;
+import exceptions.InvalidSaveException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading a game that is half way done, in memory so the disk isn't measured.
+ * A seeded game is saved as its seed and moves, and loading it makes the board again and replays the moves,
+ * any other game is saved as the whole board
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveFileBenchmark {
+	@State(Scope.Thread)
+	public static class Game {
+		@Param({"9x9", "16x16", "16x30", "100x100", "500x500", "2000x2000"})
+		String size;
+
+		@Param({"0.12", "0.16", "0.21"})
+		double density;
+
+		@Param({"board", "seeded"})
+		String format;
+
+		Minefield minefield;
+		byte[] saved;
+
+		@Setup(Level.Trial)
+		public void setup() throws IOException {
+			minefield = Boards.halfPlayed(size, density, format.equals("seeded"));
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			SaveFile.write(minefield, out);
+			saved = out.toByteArray();
+		}
+	}
+
+	@Benchmark
+	public byte[] save(Game game) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(game.saved.length);
+		SaveFile.write(game.minefield, out);
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public Minefield load(Game game) throws IOException, InvalidSaveException {
+		return SaveFile.read(new ByteArrayInputStream(game.saved));
+	}
+}
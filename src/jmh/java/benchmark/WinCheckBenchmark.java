@@ -0,0 +1,38 @@
+package benchmark;
+
+import engine.Minefield;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking if the game is won after a move. Board used to look at every square for this, the minefield now keeps count as cells are revealed,
+ * so this should stay the same at every size, if it doesn't, something went back to scanning the board
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WinCheckBenchmark {
+	@State(Scope.Thread)
+	public static class Game {
+		@Param({"9x9", "16x16", "16x30", "100x100", "500x500", "2000x2000"})
+		String size;
+
+		@Param({"0.12", "0.16", "0.21"})
+		double density;
+
+		Minefield minefield;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			minefield = Boards.halfPlayed(size, density, true);
+		}
+	}
+
+	@Benchmark
+	public boolean isWon(Game game) {
+		return game.minefield.isWon();
+	}
+}
@@ -0,0 +1,26 @@
+package engine;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays games on its own, for Simulation
+ * <p>
+ * A bot only ever reveals cells, flags and chords don't change whether a game is won.
+ * A bot is only used by one thread, but it plays many games one after another, so newGame has to forget the last one
+ */
+public interface Bot {
+	/**
+	 * Called at the start of every game, before anything is revealed
+	 *
+	 * @param minefield the game, the bot must not change it, the moves it picks are made for it
+	 * @param random    where any randomness the bot wants has to come from, so the same seed always plays the same games
+	 */
+	void newGame(Minefield minefield, RandomGenerator random);
+
+	/**
+	 * Picks the next cell to reveal, this is called until the game is won or lost, the last cell picked is always revealed before the next call
+	 *
+	 * @return the grid index of a hidden cell
+	 */
+	int nextCell();
+}
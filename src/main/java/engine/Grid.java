@@ -0,0 +1,133 @@
+package engine;
+
+/**
+ * Maps rows and columns to indices of a flat array that has a one cell border around the board
+ * <p>
+ * Because of the border, every cell on the board has all 8 neighbors in the array,
+ * so the neighbors of a cell are always at index + offset for each offset in getNeighborOffsets(),
+ * there is no need to check if a neighbor is off the edge.
+ * Whatever uses the grid is responsible for making the border cells harmless, e.g. by never revealing them
+ */
+public final class Grid {
+	private final int numRows;
+	private final int numCols;
+	private final int width; // numCols plus the border on both sides
+	private final int size;
+
+	private final int[] neighborOffsets;
+
+	/**
+	 * Constructor
+	 *
+	 * @param rows the number of rows, not counting the border
+	 * @param cols the number of columns, not counting the border
+	 * @throws IllegalArgumentException if the dimensions are not positive, or the grid would not fit in an array
+	 */
+	public Grid(int rows, int cols) {
+		if (rows <= 0 || cols <= 0 || (long) (rows + 2) * (cols + 2) > Integer.MAX_VALUE - 64) {
+			throw new IllegalArgumentException();
+		}
+
+		this.numRows = rows;
+		this.numCols = cols;
+		this.width = cols + 2;
+		this.size = (rows + 2) * width;
+
+		// (i-1,j-1), (i-1, j ), (i-1,j+1)
+		// ( i ,j-1),            ( i ,j+1)
+		// (i+1,j-1), (i+1, j ), (i+1,j+1)
+		this.neighborOffsets = new int[]{
+				-width - 1, -width, -width + 1,
+				-1, 1,
+				width - 1, width, width + 1
+		};
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param row the row of the cell, starting at 0
+	 * @param col the column of the cell, starting at 0
+	 * @return the index of the cell in the padded array
+	 */
+	public int index(int row, int col) {
+		return (row + 1) * width + col + 1;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param index an index in the padded array
+	 * @return the row of the cell, -1 or numRows for the border
+	 */
+	public int row(int index) {
+		return index / width - 1;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param index an index in the padded array
+	 * @return the column of the cell, -1 or numCols for the border
+	 */
+	public int col(int index) {
+		return index % width - 1;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param index an index in the padded array
+	 * @return true if the index is part of the border and not a cell on the board
+	 */
+	public boolean isBorder(int index) {
+		int row = row(index);
+		int col = col(index);
+		return row < 0 || row >= numRows || col < 0 || col >= numCols;
+	}
+
+	/**
+	 * The offsets of the 8 neighbors of a cell, the array is shared, so it must not be modified
+	 *
+	 * @return this.neighborOffsets
+	 */
+	public int[] getNeighborOffsets() {
+		return this.neighborOffsets;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the length of an array that holds every cell and the border
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the number of cells in a row of the padded array
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.numRows
+	 */
+	public int getNumRows() {
+		return this.numRows;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.numCols
+	 */
+	public int getNumCols() {
+		return this.numCols;
+	}
+}
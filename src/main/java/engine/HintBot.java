@@ -0,0 +1,66 @@
+package engine;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Reveals every cell HintEngine works out to be safe, and when there are none, guesses a hidden cell that isn't known to be a bomb at random.
+ * The first move is the start cell if there is one
+ */
+public class HintBot implements Bot {
+	private static final int MAX_RANDOM_TRIES = 64; // Past this, most of the board is revealed, so the hidden cells are looked for in order
+
+	protected Minefield minefield;
+	protected Grid grid;
+	protected RandomGenerator random;
+	protected HintEngine hints; // null until the first move is made
+
+	@Override
+	public void newGame(Minefield minefield, RandomGenerator random) {
+		this.minefield = minefield;
+		this.grid = minefield.getGrid();
+		this.random = random;
+		this.hints = null;
+	}
+
+	@Override
+	public int nextCell() {
+		if (minefield.getNumRevealed() == 0) {
+			int startCell = minefield.getStartCell();
+			return (startCell != -1) ? startCell : guess();
+		}
+
+		// Made after the first move, so it only has to catch up with one move at a time after that
+		if (hints == null) {
+			hints = new HintEngine(minefield);
+		} else {
+			hints.update();
+		}
+
+		int cell = hints.getSafeCell();
+		return (cell != -1) ? cell : guess();
+	}
+
+	/**
+	 * Picks a cell when no cell is certainly safe
+	 *
+	 * @return the grid index of a hidden cell
+	 */
+	protected int guess() {
+		for (int i = 0; i < MAX_RANDOM_TRIES; ++i) {
+			int row = random.nextInt(minefield.getNumRows());
+			int col = random.nextInt(minefield.getNumCols());
+			if (isGuessable(row, col)) return grid.index(row, col);
+		}
+
+		for (int row = 0; row < minefield.getNumRows(); ++row) {
+			for (int col = 0; col < minefield.getNumCols(); ++col) {
+				if (isGuessable(row, col)) return grid.index(row, col);
+			}
+		}
+		throw new IllegalStateException("Every hidden cell is a bomb, the game should be won");
+	}
+
+	private boolean isGuessable(int row, int col) {
+		return !minefield.isRevealed(row, col) && (hints == null || !hints.isBomb(row, col));
+	}
+}
@@ -0,0 +1,276 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * Works out which hidden cells are certainly safe and which are certainly bombs, only from the numbers that are revealed,
+ * the way a player would
+ * <p>
+ * Every revealed number with hidden neighbors that aren't worked out yet is on the frontier, it needs some number of bombs among them.
+ * Two rules are used on the frontier:
+ * <ul>
+ * <li>One number: if it already has all its bombs, the rest of its neighbors are safe,
+ * and if it needs every neighbor that is left, they are all bombs</li>
+ * <li>Two numbers near each other: if A needs as many more bombs than B as A has cells that B doesn't,
+ * then those cells are all bombs, and the cells B has that A doesn't are all safe.
+ * When the cells of one number are a subset of the other's, this is the usual subset rule</li>
+ * </ul>
+ * Nothing is worked out again from scratch. A number is only looked at when it was just revealed,
+ * or one of its neighbors was just revealed or worked out, so update costs about as much as the move did,
+ * plus whatever the move lets it work out. Flags are ignored, since they could be wrong
+ */
+public class HintEngine {
+	private static final byte UNKNOWN = 0;
+	private static final byte SAFE = 1;
+	private static final byte BOMB = 2;
+
+	private final Minefield minefield;
+	private final Grid grid;
+	private final int[] neighborOffsets;
+	private final int[] nearbyOffsets; // Every cell within 2 rows and 2 columns, these are the only numbers that can share a neighbor
+
+	private final byte[] known; // What has been worked out about each hidden cell
+	private final boolean[] queued; // True if the number is in dirty
+	private final IntQueue dirty = new IntQueue(); // Numbers that have to be looked at again
+
+	private final IntQueue safeCells = new IntQueue(); // Every cell worked out to be safe, the ones that were revealed since are skipped
+	private int[] bombCells = new int[64]; // Every cell worked out to be a bomb
+	private int numBombCells = 0;
+
+	// The unknown neighbors of the two numbers being looked at, reused by every call to examine
+	private final int[] unknown = new int[8];
+	private final int[] otherUnknown = new int[8];
+
+	/**
+	 * Constructor, works out everything it can from the cells that are already revealed, this looks at the whole board once
+	 *
+	 * @param minefield the game, update has to be called after every move made on it from now on
+	 */
+	public HintEngine(Minefield minefield) {
+		this.minefield = minefield;
+		this.grid = minefield.getGrid();
+		this.neighborOffsets = grid.getNeighborOffsets();
+
+		int width = grid.getWidth();
+		nearbyOffsets = new int[24];
+		int k = 0;
+		for (int dr = -2; dr <= 2; ++dr) {
+			for (int dc = -2; dc <= 2; ++dc) {
+				if (dr != 0 || dc != 0) nearbyOffsets[k++] = dr * width + dc;
+			}
+		}
+
+		known = new byte[grid.size()];
+		queued = new boolean[grid.size()];
+
+		for (int i = 0; i < grid.size(); ++i) {
+			if (minefield.isRevealed(i) && !grid.isBorder(i)) markDirty(i);
+		}
+		process();
+	}
+
+	/**
+	 * Catches up with the last move, this has to be called after every reveal or chord, calling it after anything else does nothing
+	 */
+	public void update() {
+		for (int i = 0; i < minefield.getNumChangedCells(); ++i) {
+			int index = minefield.getChangedCell(i);
+			if (!minefield.isRevealed(index)) continue; // A flag, or the bomb that lost the game
+
+			// The new number is a new constraint, and its numbered neighbors have one less hidden cell
+			markDirty(index);
+			for (int k = 0; k < neighborOffsets.length; ++k) {
+				markDirty(index + neighborOffsets[k]);
+			}
+		}
+		process();
+	}
+
+	/**
+	 * Finds a hidden cell that is certainly safe
+	 *
+	 * @return the grid index of the cell, -1 if no hidden cell is certainly safe
+	 */
+	public int getSafeCell() {
+		while (!safeCells.isEmpty()) {
+			int index = safeCells.peek();
+			if (!minefield.isRevealed(index)) return index;
+			safeCells.poll(); // Revealed cells stay revealed, so it never has to be looked at again
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds a cell that is certainly a bomb, and isn't flagged yet
+	 *
+	 * @return the grid index of the cell, -1 if every bomb that has been worked out is flagged
+	 */
+	public int getBombCell() {
+		for (int i = 0; i < numBombCells; ++i) {
+			int index = bombCells[i];
+			if (!minefield.isFlagged(grid.row(index), grid.col(index))) return index;
+		}
+		return -1;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return true if the cell is hidden and certainly safe
+	 */
+	public boolean isSafe(int row, int col) {
+		int index = grid.index(row, col);
+		return known[index] == SAFE && !minefield.isRevealed(index);
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return true if the cell is certainly a bomb
+	 */
+	public boolean isBomb(int row, int col) {
+		return known[grid.index(row, col)] == BOMB;
+	}
+
+	private void markDirty(int index) {
+		if (queued[index] || !minefield.isRevealed(index) || grid.isBorder(index)) return;
+		if (minefield.getNumber(index) == 0) return; // A revealed 0 never has hidden neighbors
+
+		queued[index] = true;
+		dirty.add(index);
+	}
+
+	private void process() {
+		while (!dirty.isEmpty()) {
+			int index = dirty.poll();
+			queued[index] = false;
+			examine(index);
+		}
+	}
+
+	/**
+	 * Applies both rules to a revealed number, anything it works out marks the numbers around it dirty
+	 *
+	 * @param index the grid index of the number
+	 */
+	private void examine(int index) {
+		int numUnknown = collectUnknown(index, unknown);
+		if (numUnknown == 0) return; // Not on the frontier
+		int needed = getBombsNeeded(index);
+
+		if (needed == 0) {
+			markAll(unknown, numUnknown, SAFE);
+			return;
+		}
+		if (needed == numUnknown) {
+			markAll(unknown, numUnknown, BOMB);
+			return;
+		}
+
+		for (int k = 0; k < nearbyOffsets.length; ++k) {
+			int other = index + nearbyOffsets[k];
+			// The border is only one cell wide, so offsets of 2 can go past the ends of the grid
+			if (other < 0 || other >= known.length || !minefield.isRevealed(other) || grid.isBorder(other)) continue;
+
+			int numOtherUnknown = collectUnknown(other, otherUnknown);
+			if (numOtherUnknown == 0) continue;
+			int otherNeeded = getBombsNeeded(other);
+
+			int shared = countShared(unknown, numUnknown, otherUnknown, numOtherUnknown);
+			int onlyThis = numUnknown - shared;
+			int onlyOther = numOtherUnknown - shared;
+			if (onlyThis == 0 && onlyOther == 0) continue; // The same cells, so the same number of bombs, nothing to learn
+
+			if (needed - otherNeeded == onlyThis) {
+				// The shared cells have all the bombs the other number needs, and the cells only this one has have the rest
+				markOnly(unknown, numUnknown, otherUnknown, numOtherUnknown, BOMB);
+				markOnly(otherUnknown, numOtherUnknown, unknown, numUnknown, SAFE);
+			} else if (otherNeeded - needed == onlyOther) {
+				markOnly(otherUnknown, numOtherUnknown, unknown, numUnknown, BOMB);
+				markOnly(unknown, numUnknown, otherUnknown, numOtherUnknown, SAFE);
+			} else {
+				continue;
+			}
+
+			// unknown is out of date now, look at this number again with the new cells
+			markDirty(index);
+			return;
+		}
+	}
+
+	/**
+	 * Finds the hidden neighbors of a number that haven't been worked out
+	 *
+	 * @param index the grid index of the number
+	 * @param out   where to put their grid indices
+	 * @return how many there are
+	 */
+	private int collectUnknown(int index, int[] out) {
+		int count = 0;
+		for (int k = 0; k < neighborOffsets.length; ++k) {
+			int neighbor = index + neighborOffsets[k];
+			if (!minefield.isRevealed(neighbor) && known[neighbor] == UNKNOWN) out[count++] = neighbor;
+		}
+		return count;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the number of a revealed cell minus the neighbors already worked out to be bombs
+	 */
+	private int getBombsNeeded(int index) {
+		int needed = minefield.getNumber(index);
+		for (int k = 0; k < neighborOffsets.length; ++k) {
+			if (known[index + neighborOffsets[k]] == BOMB) --needed;
+		}
+		return needed;
+	}
+
+	private static int countShared(int[] a, int numA, int[] b, int numB) {
+		int shared = 0;
+		for (int i = 0; i < numA; ++i) {
+			if (contains(b, numB, a[i])) ++shared;
+		}
+		return shared;
+	}
+
+	private static boolean contains(int[] cells, int numCells, int cell) {
+		for (int i = 0; i < numCells; ++i) {
+			if (cells[i] == cell) return true;
+		}
+		return false;
+	}
+
+	private void markAll(int[] cells, int numCells, byte value) {
+		for (int i = 0; i < numCells; ++i) {
+			mark(cells[i], value);
+		}
+	}
+
+	/**
+	 * Marks the cells that are in one list, but not the other
+	 */
+	private void markOnly(int[] cells, int numCells, int[] except, int numExcept, byte value) {
+		for (int i = 0; i < numCells; ++i) {
+			if (!contains(except, numExcept, cells[i])) mark(cells[i], value);
+		}
+	}
+
+	private void mark(int index, byte value) {
+		if (known[index] != UNKNOWN) return;
+
+		known[index] = value;
+		if (value == SAFE) {
+			safeCells.add(index);
+		} else {
+			if (numBombCells == bombCells.length) bombCells = Arrays.copyOf(bombCells, numBombCells * 2);
+			bombCells[numBombCells++] = index;
+		}
+
+		// Every number around the cell has one less unknown neighbor
+		for (int k = 0; k < neighborOffsets.length; ++k) {
+			markDirty(index + neighborOffsets[k]);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package engine;
+
+/**
+ * A first in, first out queue of ints that grows as needed
+ * <p>
+ * The backing array is kept when the queue is cleared, so a queue can be reused without allocating
+ */
+public class IntQueue {
+	private int[] elements;
+	private int head = 0; // Index of the next element to poll
+	private int size = 0;
+
+	/**
+	 * Constructor
+	 */
+	public IntQueue() {
+		this(64);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param initialCapacity the number of elements that fit before the queue has to grow
+	 */
+	public IntQueue(int initialCapacity) {
+		this.elements = new int[Math.max(initialCapacity, 1)];
+	}
+
+	/**
+	 * Adds a value to the back of the queue
+	 *
+	 * @param value the value to add
+	 */
+	public void add(int value) {
+		if (size == elements.length) {
+			// Unwrap the elements into a bigger array
+			int[] newElements = new int[elements.length * 2];
+			int firstPart = Math.min(size, elements.length - head);
+			System.arraycopy(elements, head, newElements, 0, firstPart);
+			System.arraycopy(elements, 0, newElements, firstPart, size - firstPart);
+			elements = newElements;
+			head = 0;
+		}
+
+		int tail = head + size;
+		if (tail >= elements.length) tail -= elements.length;
+		elements[tail] = value;
+		++size;
+	}
+
+	/**
+	 * Removes the value at the front of the queue
+	 *
+	 * @return the value that was removed
+	 * @throws java.util.NoSuchElementException if the queue is empty
+	 */
+	public int poll() {
+		if (size == 0) {
+			throw new java.util.NoSuchElementException();
+		}
+
+		int value = elements[head];
+		if (++head == elements.length) head = 0;
+		--size;
+		return value;
+	}
+
+	/**
+	 * Gets the value at the front of the queue, without removing it
+	 *
+	 * @return the value at the front
+	 * @throws java.util.NoSuchElementException if the queue is empty
+	 */
+	public int peek() {
+		if (size == 0) {
+			throw new java.util.NoSuchElementException();
+		}
+		return elements[head];
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return true if there is nothing in the queue
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.size
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Removes everything from the queue, the capacity is kept
+	 */
+	public void clear() {
+		this.head = 0;
+		this.size = 0;
+	}
+}
@@ -0,0 +1,83 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * The chance that each hidden cell is a bomb, worked out by ProbabilitySolver
+ * <p>
+ * Only the cells next to a revealed number have their own chance, every other hidden cell has the same chance as the rest
+ */
+public final class MineProbabilities {
+	private final int[] frontierCells; // Grid indices, sorted
+	private final double[] frontierProbabilities;
+	private final double interiorProbability;
+
+	MineProbabilities(int[] frontierCells, double[] frontierProbabilities, double interiorProbability) {
+		this.frontierCells = frontierCells;
+		this.frontierProbabilities = frontierProbabilities;
+		this.interiorProbability = interiorProbability;
+	}
+
+	/**
+	 * Gets the chance that a hidden cell is a bomb, this means nothing for a revealed cell
+	 *
+	 * @param index the grid index of the cell
+	 * @return the chance, from 0 to 1
+	 */
+	public double getProbability(int index) {
+		int i = Arrays.binarySearch(frontierCells, index);
+		return (i >= 0) ? frontierProbabilities[i] : interiorProbability;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the chance that a hidden cell that isn't next to any revealed number is a bomb, 0 if there are none
+	 */
+	public double getInteriorProbability() {
+		return this.interiorProbability;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the number of hidden cells next to a revealed number
+	 */
+	public int getNumFrontierCells() {
+		return this.frontierCells.length;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param i which frontier cell, in the range [0, getNumFrontierCells()), they are in order of grid index
+	 * @return the grid index of the cell
+	 */
+	public int getFrontierCell(int i) {
+		return frontierCells[i];
+	}
+
+	/**
+	 * Finds the hidden cell least likely to be a bomb, the frontier cells come first if they are as likely as the interior
+	 *
+	 * @param minefield the game this was worked out for, used to find a hidden interior cell if that is the best
+	 * @return the grid index of the cell, -1 if there are no hidden cells
+	 */
+	public int getSafestCell(Minefield minefield) {
+		int best = -1;
+		double bestProbability = 2;
+		for (int i = 0; i < frontierCells.length; ++i) {
+			if (frontierProbabilities[i] < bestProbability && !minefield.isRevealed(frontierCells[i])) {
+				best = frontierCells[i];
+				bestProbability = frontierProbabilities[i];
+			}
+		}
+		if (best != -1 && bestProbability <= interiorProbability) return best;
+
+		Grid grid = minefield.getGrid();
+		for (int i = 0; i < grid.size(); ++i) {
+			if (!minefield.isRevealed(i) && Arrays.binarySearch(frontierCells, i) < 0) return i;
+		}
+		return best;
+	}
+}
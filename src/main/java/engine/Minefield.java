@@ -0,0 +1,700 @@
+package engine;
+
+import exceptions.BombException;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * The state of a game of minesweeper, without any of the GUI
+ * <p>
+ * Every cell is addressed by its row and column, internally the cells are stored in a Grid, which has a border around the board.
+ * The number of each cell is stored in a byte, and whether a cell is revealed or flagged is stored in a bitset.
+ * The border cells are 0 and always revealed, so they are never counted as bombs, revealed by chording, or opened by revealZeros
+ * <p>
+ * A game made from a seed keeps every move made on it, the seed and the moves are all it takes to make the same game again
+ */
+public class Minefield {
+	public static final byte BOMB = -1;
+
+	// The biggest board that can be played, a board this big already takes over 100 MB
+	public static final int MAX_ROWS = 10_000;
+	public static final int MAX_COLS = 10_000;
+
+	private final int numRows;
+	private final int numCols;
+	private final int numBombs;
+	private int numFlags = 0;
+
+	// Kept up to date by every move, so nothing has to scan the board to find them
+	private int numRevealed = 0; // Revealed cells, not counting the border
+	private int numCorrectFlags = 0; // Flags that are on bombs
+
+	private final Grid grid;
+	private final int[] neighborOffsets; // The same as grid.getNeighborOffsets()
+
+	private final byte[] numbers; // The number on each cell, BOMB if it is a bomb
+	private final long[] revealed; // One bit per cell
+	private final long[] flagged; // One bit per cell
+
+	private boolean lost = false;
+
+	private long seed = 0;
+	private MoveList moves = null; // null if the game wasn't made from a seed
+
+	private final IntQueue openQueue = new IntQueue(); // Reused by every call to revealZeros
+
+	// The grid indices of the cells changed by the last reveal, chord or toggleFlag, so whatever shows the minefield
+	// only has to look at those cells
+	private int[] changedCells = new int[64];
+	private int numChangedCells = 0;
+
+	/**
+	 * Constructor, places the bombs using a SplittableRandom made from the seed, then calculates the numbers.
+	 * The bombs only depend on the seed, rows, cols and bombs, so the same four values always make the same board,
+	 * SplittableRandom gives the same numbers for the same seed on every version of Java
+	 *
+	 * @param rows  the number of rows
+	 * @param cols  the number of columns
+	 * @param bombs the number of bombs
+	 * @param seed  the seed, every move made on the game is kept with it
+	 * @throws IllegalArgumentException if the dimensions are not positive or bigger than MAX_ROWS by MAX_COLS,
+	 *                                  or there are more bombs than cells
+	 */
+	public Minefield(int rows, int cols, int bombs, long seed) {
+		this(rows, cols, bombs, new SplittableRandom(seed));
+
+		this.seed = seed;
+		this.moves = new MoveList();
+	}
+
+	/**
+	 * Constructor, randomly places the bombs and calculates the numbers, the game has no seed
+	 *
+	 * @param rows   the number of rows
+	 * @param cols   the number of columns
+	 * @param bombs  the number of bombs
+	 * @param random where the bomb locations come from
+	 * @throws IllegalArgumentException if the dimensions are not positive or bigger than MAX_ROWS by MAX_COLS,
+	 *                                  or there are more bombs than cells
+	 */
+	public Minefield(int rows, int cols, int bombs, RandomGenerator random) {
+		this(rows, cols, bombs);
+
+		placeBombs(random);
+		calculateNumbers();
+	}
+
+	/**
+	 * Picks the bomb locations uniformly at random using Floyd's sampling algorithm, so it takes O(bombs) time no matter the density.
+	 * The bomb markers in this.numbers double as the set of chosen cells
+	 * <p>
+	 * If more than half the cells are bombs, every cell starts as a bomb and the safe cells are picked instead
+	 *
+	 * @param random where the bomb locations come from
+	 */
+	private void placeBombs(RandomGenerator random) {
+		int numCells = numRows * numCols;
+		boolean placeSafeCells = numBombs > numCells / 2;
+		int numToPlace = (placeSafeCells) ? numCells - numBombs : numBombs;
+		byte marker = (placeSafeCells) ? 0 : BOMB;
+
+		if (placeSafeCells) {
+			for (int i = 0; i < numRows; ++i) {
+				Arrays.fill(numbers, grid.index(i, 0), grid.index(i, numCols), BOMB);
+			}
+		}
+
+		// For every j in [numCells - numToPlace, numCells), pick a random cell in [0, j],
+		// if it is already picked, pick j instead, since j can't have been picked yet
+		for (int j = numCells - numToPlace; j < numCells; ++j) {
+			int t = random.nextInt(j + 1);
+			int tIndex = grid.index(t / numCols, t % numCols);
+			if (numbers[tIndex] == marker) {
+				numbers[grid.index(j / numCols, j % numCols)] = marker;
+			} else {
+				numbers[tIndex] = marker;
+			}
+		}
+	}
+
+	/**
+	 * Constructor, uses the given numbers as is, every cell starts out hidden and not flagged
+	 *
+	 * @param rows    the number of rows
+	 * @param cols    the number of columns
+	 * @param numbers the number of each cell, left to right, top to bottom, BOMB if it is a bomb.
+	 *                The array is copied
+	 * @throws IllegalArgumentException if the dimensions are not positive or bigger than MAX_ROWS by MAX_COLS, or numbers is the wrong length,
+	 *                                  or any number is out of the range [-1]U[0,8]
+	 */
+	public Minefield(int rows, int cols, byte[] numbers) {
+		this(rows, cols, countBombs(numbers));
+		if (numbers.length != rows * cols) {
+			throw new IllegalArgumentException("numbers.length must be rows * cols");
+		}
+
+		for (int i = 0; i < rows; ++i) {
+			System.arraycopy(numbers, i * cols, this.numbers, grid.index(i, 0), cols);
+		}
+	}
+
+	/**
+	 * Constructor, every cell starts out as a hidden 0, the bombs are put in with setBomb and then calculateNumbers is called
+	 *
+	 * @param rows  the number of rows
+	 * @param cols  the number of columns
+	 * @param bombs the number of bombs that will be put in
+	 * @throws IllegalArgumentException if the dimensions are not positive or bigger than MAX_ROWS by MAX_COLS,
+	 *                                  or there are more bombs than cells
+	 */
+	Minefield(int rows, int cols, int bombs) {
+		if (!(rows > 0 && cols > 0 && rows <= MAX_ROWS && cols <= MAX_COLS && bombs >= 0 && bombs <= rows * cols)) {
+			throw new IllegalArgumentException();
+		}
+
+		this.numRows = rows;
+		this.numCols = cols;
+		this.numBombs = bombs;
+
+		this.grid = new Grid(rows, cols);
+		this.neighborOffsets = grid.getNeighborOffsets();
+
+		this.numbers = new byte[grid.size()];
+		this.revealed = new long[(grid.size() + 63) / 64];
+		this.flagged = new long[(grid.size() + 63) / 64];
+
+		// Reveal the border, so nothing ever tries to reveal it
+		for (int i = 0; i < grid.size(); ++i) {
+			if (grid.isBorder(i)) setBit(revealed, i, true);
+		}
+	}
+
+	/**
+	 * Constructor, copies a game, see snapshot
+	 *
+	 * @param other the game to copy
+	 */
+	private Minefield(Minefield other) {
+		this.numRows = other.numRows;
+		this.numCols = other.numCols;
+		this.numBombs = other.numBombs;
+		this.numFlags = other.numFlags;
+		this.numRevealed = other.numRevealed;
+		this.numCorrectFlags = other.numCorrectFlags;
+
+		this.grid = other.grid;
+		this.neighborOffsets = other.neighborOffsets;
+
+		this.numbers = other.numbers; // No move changes them
+		this.revealed = other.revealed.clone();
+		this.flagged = other.flagged.clone();
+
+		this.lost = other.lost;
+		this.seed = other.seed;
+		this.moves = (other.moves != null) ? new MoveList(other.moves) : null;
+	}
+
+	/**
+	 * Copies the game as it is now, so it can be written out on another thread while moves are made on this one.
+	 * The numbers are shared, only the revealed and flagged bits and the moves are copied, a few bytes for every 64 cells plus the moves
+	 *
+	 * @return the copy, it can be read on any thread, but no move can be made on it
+	 */
+	Minefield snapshot() {
+		return new Minefield(this);
+	}
+
+	/**
+	 * Makes a cell a bomb, the numbers around it are not updated until calculateNumbers is called
+	 *
+	 * @param row the row of the cell
+	 * @param col the column of the cell
+	 */
+	void setBomb(int row, int col) {
+		numbers[grid.index(row, col)] = BOMB;
+	}
+
+	/**
+	 * Sets the number of a cell as is, the numbers around it are not checked
+	 *
+	 * @param row    the row of the cell
+	 * @param col    the column of the cell
+	 * @param number the number of the cell, BOMB if it is a bomb
+	 */
+	void setNumber(int row, int col, int number) {
+		numbers[grid.index(row, col)] = (byte) number;
+	}
+
+	/**
+	 * Sets the number of every cell that isn't a bomb to the number of bombs around it
+	 *
+	 * @return the number of bombs, this should be the same as numBombs
+	 */
+	int calculateNumbers() {
+		int bombs = 0;
+		for (int i = 0; i < numRows; ++i) {
+			for (int j = 0; j < numCols; ++j) {
+				int index = grid.index(i, j);
+				if (numbers[index] != BOMB) {
+					numbers[index] = (byte) countNeighborBombs(index);
+				} else {
+					++bombs;
+				}
+			}
+		}
+		return bombs;
+	}
+
+	private static int countBombs(byte[] numbers) {
+		int bombs = 0;
+		for (int i = 0; i < numbers.length; ++i) {
+			if (numbers[i] > 8 || (numbers[i] < 0 && numbers[i] != BOMB)) {
+				throw new IllegalArgumentException("number out of range [-1]U[0,8]");
+			}
+			if (numbers[i] == BOMB) ++bombs;
+		}
+		return bombs;
+	}
+
+	private static boolean getBit(long[] bits, int index) {
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	private static void setBit(long[] bits, int index, boolean value) {
+		if (value) {
+			bits[index >>> 6] |= 1L << index;
+		} else {
+			bits[index >>> 6] &= ~(1L << index);
+		}
+	}
+
+	private int countNeighborBombs(int index) {
+		int numNeighborBombs = 0;
+		for (int k = 0; k < neighborOffsets.length; ++k) {
+			// BOMB is the only negative number, so the sign bit is 1 for bombs and 0 for everything else (including the border)
+			numNeighborBombs += numbers[index + neighborOffsets[k]] >>> 31;
+		}
+		return numNeighborBombs;
+	}
+
+	/**
+	 * Reveals a cell, if the cell is a zero, all the connected zeros (and their neighbors) are revealed too
+	 *
+	 * @param row the row of the cell
+	 * @param col the column of the cell
+	 * @return true if the cell was revealed, false if it was already revealed or it is flagged
+	 * @throws exceptions.BombException if the cell is a bomb, the game is lost after this
+	 */
+	public boolean reveal(int row, int col) throws BombException {
+		numChangedCells = 0;
+		if (!reveal(grid.index(row, col))) return false;
+
+		addMove(MoveList.REVEAL, row, col);
+		return true;
+	}
+
+	private boolean reveal(int index) throws BombException {
+		if (getBit(revealed, index) || getBit(flagged, index)) return false;
+
+		if (numbers[index] == BOMB) {
+			lost = true;
+			markChanged(index);
+			throw new BombException();
+		}
+
+		setBit(revealed, index, true);
+		++numRevealed;
+		markChanged(index);
+		if (numbers[index] == 0) {
+			revealZeros(index);
+		}
+		return true;
+	}
+
+	/**
+	 * Reveals every hidden non-flagged neighbor of a revealed cell, if that cell has as many flagged neighbors as its number
+	 *
+	 * @param row the row of the cell
+	 * @param col the column of the cell
+	 * @return true if anything was revealed
+	 * @throws exceptions.BombException if one of the neighbors is a bomb, the game is lost after this
+	 */
+	public boolean chord(int row, int col) throws BombException {
+		numChangedCells = 0;
+		int index = grid.index(row, col);
+		if (!getBit(revealed, index)) return false;
+
+		int num = numbers[index];
+		for (int k = 0; k < neighborOffsets.length; ++k) {
+			if (getBit(flagged, index + neighborOffsets[k])) --num;
+		}
+		if (num > 0) return false; // The cell is not satisfied
+
+		boolean revealedCell = false;
+		for (int k = 0; k < neighborOffsets.length; ++k) {
+			revealedCell |= reveal(index + neighborOffsets[k]);
+		}
+		if (revealedCell) addMove(MoveList.CHORD, row, col);
+		return revealedCell;
+	}
+
+	/**
+	 * Reveals everything connected to a revealed zero, only the opened region and its border are visited
+	 *
+	 * @param start the index of a revealed zero
+	 */
+	private void revealZeros(int start) {
+		openQueue.clear();
+		openQueue.add(start);
+
+		while (!openQueue.isEmpty()) {
+			int index = openQueue.poll();
+
+			for (int k = 0; k < neighborOffsets.length; ++k) {
+				int neighbor = index + neighborOffsets[k];
+				if (getBit(revealed, neighbor) || getBit(flagged, neighbor)) continue; // This also skips the border
+
+				// The neighbors of a zero are never bombs, so this can't lose the game
+				setBit(revealed, neighbor, true);
+				++numRevealed;
+				markChanged(neighbor);
+				if (numbers[neighbor] == 0) {
+					// Each cell is only revealed once, so each zero is only added once
+					openQueue.add(neighbor);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Flags a hidden cell if it is not flagged, unflags it if it is flagged.
+	 * A cell will not be flagged if there are already as many flags as bombs
+	 *
+	 * @param row the row of the cell
+	 * @param col the column of the cell
+	 * @return true if the cell was flagged or unflagged
+	 */
+	public boolean toggleFlag(int row, int col) {
+		numChangedCells = 0;
+		int index = grid.index(row, col);
+		if (getBit(revealed, index)) return false; // Don't flag a revealed cell
+
+		if (getBit(flagged, index)) {
+			setBit(flagged, index, false);
+			--numFlags;
+			if (numbers[index] == BOMB) --numCorrectFlags;
+			markChanged(index);
+			addMove(MoveList.UNFLAG, row, col);
+			return true;
+		} else if (numBombs - numFlags > 0) {
+			setBit(flagged, index, true);
+			++numFlags;
+			if (numbers[index] == BOMB) ++numCorrectFlags;
+			markChanged(index);
+			addMove(MoveList.FLAG, row, col);
+			return true;
+		}
+		return false;
+	}
+
+	private void addMove(byte type, int row, int col) {
+		if (moves != null) moves.add(type, row, col);
+	}
+
+	private void markChanged(int index) {
+		if (numChangedCells == changedCells.length) {
+			changedCells = Arrays.copyOf(changedCells, changedCells.length * 2);
+		}
+		changedCells[numChangedCells++] = index;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the number of cells changed by the last reveal, chord or toggleFlag
+	 */
+	public int getNumChangedCells() {
+		return this.numChangedCells;
+	}
+
+	/**
+	 * Gets one of the cells changed by the last reveal, chord or toggleFlag
+	 *
+	 * @param i which changed cell, in the range [0, getNumChangedCells())
+	 * @return the grid index of the cell
+	 */
+	public int getChangedCell(int i) {
+		if (i < 0 || i >= numChangedCells) {
+			throw new IndexOutOfBoundsException(i);
+		}
+		return changedCells[i];
+	}
+
+	/**
+	 * Sets the state of a cell directly, used when loading a game.
+	 * This can't be made as a move, so the game can't be made from its seed any more, and it no longer has one
+	 *
+	 * @param row        the row of the cell
+	 * @param col        the column of the cell
+	 * @param isRevealed the new revealed state
+	 * @param isFlagged  the new flagged state
+	 * @throws IllegalArgumentException if the cell would be both revealed and flagged, or a bomb would be revealed
+	 */
+	public void setCell(int row, int col, boolean isRevealed, boolean isFlagged) {
+		int index = grid.index(row, col);
+		if (isRevealed && isFlagged) {
+			throw new IllegalArgumentException("A cell can not be both flagged and revealed");
+		}
+		if (isRevealed && numbers[index] == BOMB) {
+			throw new IllegalArgumentException("A bomb can not be revealed");
+		}
+
+		int bomb = numbers[index] >>> 31; // 1 if it is a bomb
+		if (getBit(flagged, index)) {
+			--numFlags;
+			numCorrectFlags -= bomb;
+		}
+		if (isFlagged) {
+			++numFlags;
+			numCorrectFlags += bomb;
+		}
+		if (getBit(revealed, index)) --numRevealed;
+		if (isRevealed) ++numRevealed;
+
+		setBit(revealed, index, isRevealed);
+		setBit(flagged, index, isFlagged);
+		moves = null;
+	}
+
+	/**
+	 * Checks that every number matches the number of bombs around it
+	 *
+	 * @return true if every non-bomb cell has the right number
+	 */
+	public boolean isConsistent() {
+		for (int i = 0; i < numRows; ++i) {
+			for (int j = 0; j < numCols; ++j) {
+				int index = grid.index(i, j);
+				if (numbers[index] != BOMB && numbers[index] != countNeighborBombs(index)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the first zero, left to right, top to bottom, this is the cell the user should click first
+	 *
+	 * @return the grid index of the first zero, -1 if there are no zeros
+	 */
+	public int getStartCell() {
+		for (int i = 0; i < numbers.length; ++i) {
+			if (numbers[i] == 0 && !grid.isBorder(i)) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks if all the non-bombs have been revealed
+	 *
+	 * @return true if the game is won
+	 */
+	public boolean isWon() {
+		return !lost && numRevealed == numRows * numCols - numBombs;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return true if a bomb has been revealed
+	 */
+	public boolean isLost() {
+		return this.lost;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the number on the cell, BOMB if it is a bomb
+	 */
+	public int getNumber(int row, int col) {
+		return numbers[grid.index(row, col)];
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return true if the cell is a bomb
+	 */
+	public boolean isBomb(int row, int col) {
+		return numbers[grid.index(row, col)] == BOMB;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param index the grid index of the cell
+	 * @return true if the cell is revealed, the border is always revealed
+	 */
+	boolean isRevealed(int index) {
+		return getBit(revealed, index);
+	}
+
+	/**
+	 * Gets the number of a cell by its grid index, anything that works out the board the way a player would should only look at revealed cells
+	 *
+	 * @param index the grid index of the cell
+	 * @return the number on the cell, BOMB if it is a bomb, 0 for the border
+	 */
+	int getNumber(int index) {
+		return numbers[index];
+	}
+
+	/**
+	 * Gets the numbers of every cell, not a copy. They are only set while the game is made or loaded, no move changes them,
+	 * so once the game is being played they can be read on any thread, like getNumber, only revealed cells should be looked at
+	 *
+	 * @return the number on each cell by grid index, this must not be changed
+	 */
+	byte[] getNumbers() {
+		return numbers;
+	}
+
+	/**
+	 * Copies the revealed bits, the copy doesn't change with the game, so it can be read on any thread
+	 *
+	 * @return one bit per grid index, the bit of index i is bit i % 64 of element i / 64, the border is always revealed
+	 */
+	long[] copyRevealed() {
+		return revealed.clone();
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return true if the cell is revealed
+	 */
+	public boolean isRevealed(int row, int col) {
+		return getBit(revealed, grid.index(row, col));
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return true if the cell is flagged
+	 */
+	public boolean isFlagged(int row, int col) {
+		return getBit(flagged, grid.index(row, col));
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return true if the game was made from a seed, and every move made on it is known
+	 */
+	public boolean hasSeed() {
+		return this.moves != null;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.seed, only meaningful if hasSeed is true
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * Gets every move made on the game, in order, it is added to by every move from now on
+	 *
+	 * @return this.moves, null if the game has no seed
+	 */
+	public MoveList getMoves() {
+		return this.moves;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.grid
+	 */
+	public Grid getGrid() {
+		return this.grid;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.numRows
+	 */
+	public int getNumRows() {
+		return this.numRows;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.numCols
+	 */
+	public int getNumCols() {
+		return this.numCols;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.numBombs
+	 */
+	public int getNumBombs() {
+		return this.numBombs;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.numFlags
+	 */
+	public int getNumFlags() {
+		return this.numFlags;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the number of revealed cells, these are never bombs
+	 */
+	public int getNumRevealed() {
+		return this.numRevealed;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the number of flags that are on bombs
+	 */
+	public int getNumCorrectFlags() {
+		return this.numCorrectFlags;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the number of cells that are not revealed, flagged or not
+	 */
+	public int getNumHidden() {
+		return numRows * numCols - this.numRevealed;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the number of safe cells that still have to be revealed to win
+	 */
+	public int getNumSafeHidden() {
+		return numRows * numCols - numBombs - this.numRevealed;
+	}
+}
@@ -0,0 +1,295 @@
+package engine;
+
+import exceptions.BombException;
+import exceptions.InvalidSaveException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Autosaves a game by appending every move to a log, with a snapshot of the board every so often
+ * <p>
+ * The directory holds a snapshot, written with SaveFile, and a log of the moves made since then.
+ * Each move is a record of RECORD_SIZE bytes: the type of the move, then the row and column.
+ * Once there have been about as many moves as it takes to write a snapshot, a new snapshot is written and the log starts over,
+ * so the log never gets much bigger than the board.
+ * <p>
+ * The log starts with the checksum of the snapshot it goes with. If the game stops between writing a snapshot and starting its log,
+ * the old log doesn't match the new snapshot and is ignored, which is right, since the snapshot already has those moves.
+ * Records are not forced to the disk, so a move that the operating system never wrote can be lost if the computer crashes,
+ * but if only the game crashes, nothing is lost. A record that was only partly written is ignored.
+ * Snapshots aren't forced either, for the same reason
+ * <p>
+ * Only the records are written on the thread that makes the moves. The first snapshot is written by start, on whatever thread calls it,
+ * so a game that was just loaded can be started on the thread that loaded it. Every snapshot after that is written on a background thread,
+ * from a copy of the game, while the moves go on: they are still added to the old log, which goes with the old snapshot,
+ * and they are also kept in memory, and written to the new log once the new snapshot is in place
+ */
+public class MoveJournal implements Closeable {
+	private static final String SNAPSHOT_FILE = "autosave.mine";
+	private static final String LOG_FILE = "autosave.log";
+
+	private static final int MAGIC = 0x4D534A4C; // "MSJL"
+	private static final int HEADER_SIZE = 8; // MAGIC, the checksum of the snapshot
+	private static final int RECORD_SIZE = 9; // type, row, col
+	private static final int MIN_MOVES_PER_SNAPSHOT = 1024;
+
+	private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "move-journal");
+			thread.setDaemon(true); // The old snapshot and log have every move until the new ones are in place, so nothing is lost if the program exits
+			return thread;
+		}
+	});
+
+	private final Path dir;
+
+	// Shared with the writer thread, so they are only used while holding the lock on this
+	private Minefield minefield;
+	private FileChannel log;
+	private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE); // Reused for every move
+
+	private int movesSinceSnapshot = 0;
+	private int movesPerSnapshot = MIN_MOVES_PER_SNAPSHOT;
+
+	private int generation = 0; // Changed whenever the snapshot being written is no longer wanted
+	private Future<?> snapshotTask = null; // The snapshot being written on the writer thread, null if there is none
+	private ByteBuffer newRecords = null; // The moves made since the game was copied for that snapshot, they go in its log
+	private IOException writeFailure = null; // Why the last snapshot couldn't be written, the next record throws it
+
+	/**
+	 * Constructor, nothing is written until start is called
+	 *
+	 * @param dir the directory to keep the autosave in, it is created if it doesn't exist
+	 */
+	public MoveJournal(Path dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return true if there is an autosave that recover can read
+	 */
+	public boolean exists() {
+		return Files.exists(dir.resolve(SNAPSHOT_FILE));
+	}
+
+	/**
+	 * Starts autosaving a game, replacing the autosave of any other game. The first snapshot is written on this thread,
+	 * which takes as long as saving the game, so for a big game this should be called on the thread that made or loaded it,
+	 * before it is played
+	 *
+	 * @param minefield the game, it must not be changed until this returns, every move made on it has to be recorded from then on
+	 * @throws IOException if the snapshot or the log can't be written, or an InterruptedIOException if the thread was interrupted
+	 */
+	public void start(Minefield minefield) throws IOException {
+		int startGeneration;
+		synchronized (this) {
+			close();
+			this.minefield = minefield;
+			movesSinceSnapshot = 0;
+			writeFailure = null;
+			startGeneration = generation;
+		}
+		writeSnapshot(minefield, startGeneration);
+	}
+
+	/**
+	 * Records a move that was just made, only call this if the move changed something
+	 *
+	 * @param type one of the move types in MoveList
+	 * @param row  the row of the cell
+	 * @param col  the column of the cell
+	 * @throws IOException if the move can't be written
+	 */
+	public synchronized void record(byte type, int row, int col) throws IOException {
+		if (writeFailure != null) {
+			IOException ex = writeFailure;
+			writeFailure = null;
+			throw ex;
+		}
+		if (log == null) return;
+
+		record.clear();
+		record.put(type).putInt(row).putInt(col).flip();
+		while (record.hasRemaining()) {
+			log.write(record);
+		}
+		if (newRecords != null) {
+			if (newRecords.remaining() < RECORD_SIZE) {
+				newRecords = ByteBuffer.allocate(newRecords.capacity() * 2).put(newRecords.flip());
+			}
+			newRecords.put(record.flip());
+		}
+
+		// Once the log costs as much to replay as a snapshot costs to write, replace them both with a new snapshot
+		if (++movesSinceSnapshot >= movesPerSnapshot && snapshotTask == null) startSnapshot();
+	}
+
+	/**
+	 * Copies the game and writes it as the new snapshot on the writer thread, the moves made until it is in place are kept for its log
+	 */
+	private void startSnapshot() {
+		final Minefield SNAPSHOT = minefield.snapshot();
+		final int SNAPSHOT_GENERATION = generation;
+		movesSinceSnapshot = 0;
+		newRecords = ByteBuffer.allocate(RECORD_SIZE * 64);
+		snapshotTask = WRITER.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					writeSnapshot(SNAPSHOT, SNAPSHOT_GENERATION);
+				} catch (IOException ex) {
+					synchronized (MoveJournal.this) {
+						if (SNAPSHOT_GENERATION == generation) writeFailure = ex; // Otherwise it was cancelled, and nothing is wrong
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Stops the snapshot being written, if there is one, it is left out even if it is about to be done
+	 */
+	private void cancelSnapshot() {
+		++generation;
+		if (snapshotTask != null) snapshotTask.cancel(true);
+		snapshotTask = null;
+		newRecords = null;
+	}
+
+	/**
+	 * Stops autosaving and deletes the autosave, for when the game is over
+	 *
+	 * @throws IOException if the autosave can't be deleted
+	 */
+	public synchronized void discard() throws IOException {
+		close();
+		minefield = null;
+		Files.deleteIfExists(dir.resolve(LOG_FILE));
+		Files.deleteIfExists(dir.resolve(SNAPSHOT_FILE));
+	}
+
+	/**
+	 * Stops autosaving, the autosave is kept so it can be recovered
+	 *
+	 * @throws IOException if the log can't be closed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		cancelSnapshot();
+		if (log != null) {
+			log.close();
+			log = null;
+		}
+	}
+
+	/**
+	 * Writes a snapshot, then puts it and a new log in place of the old ones, unless generation changed while it was being written
+	 *
+	 * @param game               the game to write, it isn't changed while this runs
+	 * @param snapshotGeneration the generation when the snapshot was asked for
+	 */
+	private void writeSnapshot(Minefield game, int snapshotGeneration) throws IOException {
+		Files.createDirectories(dir);
+		Path temp = Files.createTempFile(dir, SNAPSHOT_FILE, ".tmp");
+		try {
+			int checksum = SaveFile.write(game, temp, null, false);
+
+			synchronized (this) {
+				if (snapshotGeneration != generation) return; // Another game was started, or autosaving stopped
+
+				Path snapshot = dir.resolve(SNAPSHOT_FILE);
+				replace(temp, snapshot);
+
+				// The new log replaces the old one all at once, so there is always a log that matches the snapshot, or one that doesn't match at all
+				Path logTemp = Files.createTempFile(dir, LOG_FILE, ".tmp");
+				try {
+					try (FileChannel channel = FileChannel.open(logTemp, StandardOpenOption.WRITE)) {
+						ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(checksum).flip();
+						while (header.hasRemaining()) {
+							channel.write(header);
+						}
+						if (newRecords != null) {
+							newRecords.flip();
+							while (newRecords.hasRemaining()) {
+								channel.write(newRecords);
+							}
+						}
+					}
+					replace(logTemp, dir.resolve(LOG_FILE));
+				} finally {
+					Files.deleteIfExists(logTemp);
+				}
+
+				if (log != null) log.close();
+				log = FileChannel.open(dir.resolve(LOG_FILE), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+				snapshotTask = null;
+				newRecords = null;
+				movesPerSnapshot = (int) Math.max(MIN_MOVES_PER_SNAPSHOT, Files.size(snapshot) / RECORD_SIZE);
+			}
+		} finally {
+			Files.deleteIfExists(temp); // Only still there if it wasn't used
+		}
+	}
+
+	private static void replace(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException ex) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Rebuilds the autosaved game, by replaying the log onto the snapshot
+	 *
+	 * @param dir the directory the autosave is in
+	 * @return the game, null if there is no autosave, or the game in it was already lost
+	 * @throws IOException          if reading fails
+	 * @throws InvalidSaveException if the snapshot is not valid
+	 */
+	public static Minefield recover(Path dir) throws IOException, InvalidSaveException {
+		Path snapshot = dir.resolve(SNAPSHOT_FILE);
+		Path logPath = dir.resolve(LOG_FILE);
+		if (!Files.exists(snapshot)) return null;
+
+		Minefield minefield = SaveFile.read(snapshot);
+		if (!Files.exists(logPath)) return minefield;
+
+		try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+			int read = 0;
+			while (buffer.position() < HEADER_SIZE && read != -1) {
+				read = channel.read(buffer);
+			}
+			buffer.flip();
+			if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != SaveFile.readChecksum(snapshot)) {
+				return minefield; // The log belongs to an older snapshot
+			}
+
+			while (true) {
+				while (buffer.remaining() >= RECORD_SIZE) {
+					// An invalid move means the rest of the log can't be trusted
+					if (!MoveList.replay(minefield, buffer.get(), buffer.getInt(), buffer.getInt())) return minefield;
+				}
+
+				// Move the part of a record that is left to the front, and read more after it
+				buffer.compact();
+				if (channel.read(buffer) == -1) return minefield; // A record that was only partly written is left out
+				buffer.flip();
+			}
+		} catch (BombException ex) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package engine;
+
+import exceptions.BombException;
+
+import java.util.Arrays;
+
+/**
+ * Every move made on a game, in order, so the game can be rebuilt from its seed by making them again
+ * <p>
+ * Each move is a type, a row and a column, kept in three arrays that grow as needed.
+ * Only moves that changed something are added
+ */
+public class MoveList {
+	public static final byte REVEAL = 1;
+	public static final byte CHORD = 2;
+	public static final byte FLAG = 3;
+	public static final byte UNFLAG = 4;
+
+	private byte[] types = new byte[64];
+	private int[] rows = new int[64];
+	private int[] cols = new int[64];
+	private int size = 0;
+
+	/**
+	 * Constructor, an empty list
+	 */
+	public MoveList() {
+	}
+
+	/**
+	 * Constructor, copies the moves of another list
+	 *
+	 * @param other the list to copy
+	 */
+	MoveList(MoveList other) {
+		this.types = Arrays.copyOf(other.types, Math.max(other.size, 1));
+		this.rows = Arrays.copyOf(other.rows, Math.max(other.size, 1));
+		this.cols = Arrays.copyOf(other.cols, Math.max(other.size, 1));
+		this.size = other.size;
+	}
+
+	/**
+	 * Adds a move to the end of the list
+	 *
+	 * @param type REVEAL, CHORD, FLAG or UNFLAG
+	 * @param row  the row of the cell
+	 * @param col  the column of the cell
+	 */
+	public void add(byte type, int row, int col) {
+		if (size == types.length) {
+			types = Arrays.copyOf(types, size * 2);
+			rows = Arrays.copyOf(rows, size * 2);
+			cols = Arrays.copyOf(cols, size * 2);
+		}
+		types[size] = type;
+		rows[size] = row;
+		cols[size] = col;
+		++size;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the number of moves
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param i which move, in the range [0, size())
+	 * @return REVEAL, CHORD, FLAG or UNFLAG
+	 */
+	public byte getType(int i) {
+		checkIndex(i);
+		return types[i];
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param i which move, in the range [0, size())
+	 * @return the row of the cell
+	 */
+	public int getRow(int i) {
+		checkIndex(i);
+		return rows[i];
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param i which move, in the range [0, size())
+	 * @return the column of the cell
+	 */
+	public int getCol(int i) {
+		checkIndex(i);
+		return cols[i];
+	}
+
+	private void checkIndex(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException(i);
+		}
+	}
+
+	/**
+	 * Makes a move that was read from a save or a log, the move is checked first, since the file it came from could be anything
+	 *
+	 * @param minefield the game to make the move on
+	 * @param type      REVEAL, CHORD, FLAG or UNFLAG
+	 * @param row       the row of the cell
+	 * @param col       the column of the cell
+	 * @return false if it is not a valid move
+	 * @throws BombException if the move reveals a bomb
+	 */
+	public static boolean replay(Minefield minefield, byte type, int row, int col) throws BombException {
+		if (row < 0 || row >= minefield.getNumRows() || col < 0 || col >= minefield.getNumCols()) return false;
+
+		switch (type) {
+			case REVEAL -> minefield.reveal(row, col);
+			case CHORD -> minefield.chord(row, col);
+			case FLAG -> {
+				if (!minefield.isFlagged(row, col)) minefield.toggleFlag(row, col);
+			}
+			case UNFLAG -> {
+				if (minefield.isFlagged(row, col)) minefield.toggleFlag(row, col);
+			}
+			default -> {
+				return false;
+			}
+		}
+		return true;
+	}
+}
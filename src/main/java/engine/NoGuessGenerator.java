@@ -0,0 +1,107 @@
+package engine;
+
+import exceptions.BombException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+
+/**
+ * Finds boards that can be solved from the "X" without ever guessing
+ * <p>
+ * A board can be solved without guessing if revealing the start cell, then every cell HintEngine works out to be safe,
+ * reveals every safe cell. Most boards can't, so candidates are made from random seeds and checked on every core at once,
+ * the first one that can be solved is used and the rest are stopped.
+ * The seed is what is returned, so the board is made the same way as any other seeded board, and can be saved and replayed like one
+ */
+public final class NoGuessGenerator {
+	private static final int NUM_THREADS = Runtime.getRuntime().availableProcessors();
+	private static final int CANDIDATES_PER_REPORT = 16; // How many candidates each thread checks between progress reports
+
+	private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(NUM_THREADS, new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "no-guess-generator");
+			thread.setDaemon(true); // Nothing is lost if the program exits in the middle of a search
+			return thread;
+		}
+	});
+
+	private NoGuessGenerator() {
+	}
+
+	/**
+	 * Looks for a seed that makes a board that can be solved without guessing, this waits until one is found
+	 *
+	 * @param rows          the number of rows
+	 * @param cols          the number of columns
+	 * @param bombs         the number of bombs
+	 * @param seeds         where the candidate seeds come from, this is split before anything else runs, so it is only used on the calling thread
+	 * @param timeoutMillis how long to look for
+	 * @param listener      told how much of the time is used up, from the threads doing the search, can be null
+	 * @return the seed, new Minefield(rows, cols, bombs, seed) makes the board
+	 * @throws InterruptedException if the calling thread is interrupted, the search is stopped
+	 * @throws TimeoutException     if no board was found in time, the board may be too dense to ever be solved without guessing
+	 */
+	public static long findSeed(int rows, int cols, int bombs, SplittableRandom seeds, long timeoutMillis, ProgressListener listener)
+			throws InterruptedException, TimeoutException {
+		final long DEADLINE = System.nanoTime() + timeoutMillis * 1_000_000;
+
+		List<Callable<Long>> tasks = new ArrayList<>();
+		for (int t = 0; t < NUM_THREADS; ++t) {
+			final SplittableRandom TASK_SEEDS = seeds.split(); // Every thread gets its own stream, so no two threads check the same seed
+
+			tasks.add(new Callable<Long>() {
+				@Override
+				public Long call() throws InterruptedException, TimeoutException {
+					for (int checked = 1; ; ++checked) {
+						long seed = TASK_SEEDS.nextLong();
+						if (isSolvable(new Minefield(rows, cols, bombs, seed))) return seed;
+
+						// invokeAny interrupts the threads that are still looking once one finds a board
+						if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+						if (checked % CANDIDATES_PER_REPORT == 0) {
+							long left = DEADLINE - System.nanoTime();
+							if (left <= 0) throw new TimeoutException();
+							if (listener != null) listener.progress(timeoutMillis - left / 1_000_000, timeoutMillis);
+						}
+					}
+				}
+			});
+		}
+
+		try {
+			return EXECUTOR.invokeAny(tasks, timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException ex) {
+			// Every thread ran out of time, a board that can't be solved is not an error
+			if (ex.getCause() instanceof TimeoutException) throw (TimeoutException) ex.getCause();
+			throw new RuntimeException(ex.getCause());
+		}
+	}
+
+	/**
+	 * Plays the board the way the hints would, from the start cell, the board is changed by this
+	 *
+	 * @param minefield a board with nothing revealed
+	 * @return true if every safe cell was revealed without guessing
+	 */
+	public static boolean isSolvable(Minefield minefield) {
+		int startCell = minefield.getStartCell();
+		if (startCell == -1) return false; // No "X", so the first click is already a guess
+
+		Grid grid = minefield.getGrid();
+		try {
+			minefield.reveal(grid.row(startCell), grid.col(startCell));
+			HintEngine hints = new HintEngine(minefield);
+			int cell;
+			while (!minefield.isWon() && (cell = hints.getSafeCell()) != -1) {
+				minefield.reveal(grid.row(cell), grid.col(cell));
+				hints.update();
+			}
+		} catch (BombException ex) {
+			throw new IllegalStateException("A cell the hints worked out to be safe was a bomb", ex);
+		}
+		return minefield.isWon();
+	}
+}
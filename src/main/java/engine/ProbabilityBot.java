@@ -0,0 +1,28 @@
+package engine;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Like HintBot, but when it has to guess, it guesses the cell least likely to be a bomb, from ProbabilitySolver
+ */
+public class ProbabilityBot extends HintBot {
+	private final ForkJoinPool pool;
+
+	/**
+	 * Constructor
+	 *
+	 * @param pool where the solves run, Simulation already keeps every core busy, so a pool with one thread is enough
+	 */
+	public ProbabilityBot(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	@Override
+	protected int guess() {
+		if (minefield.getNumRevealed() == 0) return super.guess(); // Every cell is as likely as any other
+
+		MineProbabilities probabilities = new ProbabilitySolver(minefield).solve(pool);
+		if (probabilities == null) return super.guess(); // Too big to work out
+		return probabilities.getSafestCell(minefield);
+	}
+}
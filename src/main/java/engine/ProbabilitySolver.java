@@ -0,0 +1,779 @@
+package engine;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Works out the exact chance that each hidden cell is a bomb, from the revealed numbers and the number of bombs
+ * <p>
+ * The hidden cells next to a revealed number are the frontier, each number says how many bombs are among its hidden neighbors.
+ * Frontier cells that are next to exactly the same numbers can be swapped without changing anything, so they are put in a group,
+ * and a group of m cells with j bombs counts as C(m, j) ways. The groups split into components that share no numbers,
+ * each component is enumerated on its own, counting the ways to place each number of bombs in it.
+ * Components with a lot of groups are split further by the values of their first groups, every part is a task on a ForkJoinPool.
+ * <p>
+ * The components are put back together with the rest of the hidden cells, the interior:
+ * if the frontier has K bombs, the interior has the other numBombs - K, which it can have in C(interior, numBombs - K) ways.
+ * These numbers are far too big for a double, so every array of counts is scaled to a largest value of 1 as it is made,
+ * the scales cancel out in every chance that is worked out. Putting the components together is done in logs, and nothing is dropped
+ * along the way for being small, a count that is tiny next to the others of its component can be the one that matters for the whole board
+ * <p>
+ * Flags are ignored, like in HintEngine, since they could be wrong, so every hidden cell counts, flagged or not.
+ * <p>
+ * The constructor only takes a snapshot of the Minefield, so it is cheap enough to call after every move,
+ * everything else, finding the frontier too, is done by solve, which can run on any thread while the game goes on.
+ * cancel can be called from any thread to stop it
+ */
+public class ProbabilitySolver {
+	private static final byte UNSETTLED = 0;
+	private static final byte SAFE = 1;
+	private static final byte BOMB = 2;
+
+	private static final int MIN_GROUPS_TO_SPLIT = 16; // Smaller components are enumerated by one task
+	private static final int MAX_SPLIT_COUNTS = 1 << 16; // Every task has its own counts, so only components with small counts are split
+	private static final int MAX_GROUPS = 2000; // Far more than can ever be enumerated, this only stops the counts from using up the memory
+	private static final int NODES_PER_CANCEL_CHECK = 4096;
+
+	// BINOMIAL[m][j] = C(m, j), a group is never more than the 8 neighbors of a number
+	private static final double[][] BINOMIAL = new double[9][];
+
+	static {
+		for (int m = 0; m < BINOMIAL.length; ++m) {
+			BINOMIAL[m] = new double[m + 1];
+			BINOMIAL[m][0] = BINOMIAL[m][m] = 1;
+			for (int j = 1; j < m; ++j) {
+				BINOMIAL[m][j] = BINOMIAL[m - 1][j - 1] + BINOMIAL[m - 1][j];
+			}
+		}
+	}
+
+	private final int numBombs;
+	private final int numHidden;
+
+	// What solve works from, the revealed bits are a copy, and the numbers are never changed by a move
+	private final Grid grid;
+	private final byte[] numbers;
+	private final long[] revealed;
+
+	// The numbers on the frontier, the hidden neighbors of number i are cells[cellStart[i]] to cells[cellStart[i + 1] - 1], filled in by solve
+	private int[] targets;
+	private int[] cellStart;
+	private int[] cells;
+
+	private volatile boolean cancelled = false;
+	private int parallelism = 1; // Of the pool solve was given, getPool can be null when a thread outside the pool helps out
+
+	/**
+	 * Constructor, takes a snapshot of the game, this has to be called on the thread that makes the moves.
+	 * Only the revealed bits are copied, a few bytes for every 64 cells, finding the frontier is left to solve
+	 *
+	 * @param minefield the game
+	 */
+	public ProbabilitySolver(Minefield minefield) {
+		this.numBombs = minefield.getNumBombs();
+		this.numHidden = minefield.getNumHidden();
+		this.grid = minefield.getGrid();
+		this.numbers = minefield.getNumbers();
+		this.revealed = minefield.copyRevealed();
+	}
+
+	/**
+	 * Finds the revealed numbers next to hidden cells in the snapshot, and their hidden neighbors
+	 */
+	private void findFrontier() {
+		int[] offsets = grid.getNeighborOffsets();
+		int numTargets = 0;
+		int[] targetList = new int[64];
+		int[] startList = new int[65];
+		int[] cellList = new int[512];
+		int numCells = 0;
+
+		for (int index = 0; index < grid.size(); ++index) {
+			if ((index & (NODES_PER_CANCEL_CHECK - 1)) == 0) checkCancelled();
+			if (!isRevealed(index) || grid.isBorder(index) || numbers[index] == 0) continue;
+
+			int start = numCells;
+			for (int k = 0; k < offsets.length; ++k) {
+				int neighbor = index + offsets[k];
+				if (isRevealed(neighbor)) continue;
+				if (numCells == cellList.length) cellList = Arrays.copyOf(cellList, numCells * 2);
+				cellList[numCells++] = neighbor;
+			}
+			if (numCells == start) continue; // Not on the frontier
+
+			if (numTargets + 1 == targetList.length) {
+				targetList = Arrays.copyOf(targetList, targetList.length * 2);
+				startList = Arrays.copyOf(startList, startList.length * 2);
+			}
+			targetList[numTargets] = numbers[index];
+			startList[numTargets] = start;
+			++numTargets;
+		}
+		startList[numTargets] = numCells;
+
+		this.targets = Arrays.copyOf(targetList, numTargets);
+		this.cellStart = Arrays.copyOf(startList, numTargets + 1);
+		this.cells = Arrays.copyOf(cellList, numCells);
+	}
+
+	private boolean isRevealed(int index) {
+		return (revealed[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Stops the solve that is running, it throws a CancellationException. Safe to call from any thread, at any time
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * Works out the chances, the components are enumerated in parallel on the pool and this waits for them
+	 *
+	 * @param pool where the enumeration runs
+	 * @return the chances, null if the numbers can't all be right with this many bombs, which only happens if the board is not valid,
+	 * or a component is too big to ever finish enumerating
+	 * @throws CancellationException if cancel was called
+	 */
+	public MineProbabilities solve(ForkJoinPool pool) {
+		findFrontier();
+
+		// Every hidden cell next to a number becomes a variable, numbered in order of grid index
+		int[] frontier = cells.clone();
+		Arrays.sort(frontier);
+		int numVariables = 0;
+		for (int i = 0; i < frontier.length; ++i) {
+			if (i == 0 || frontier[i] != frontier[i - 1]) frontier[numVariables++] = frontier[i];
+		}
+		frontier = Arrays.copyOf(frontier, numVariables);
+
+		// The numbers each variable is next to, in order, this is what decides its group
+		int[] numTargetsOf = new int[numVariables];
+		int[][] targetsOf = new int[numVariables][];
+		int[] variableAt = new int[cells.length]; // The variable of each entry in cells
+		for (int i = 0; i < cells.length; ++i) {
+			variableAt[i] = Arrays.binarySearch(frontier, cells[i]);
+			++numTargetsOf[variableAt[i]];
+		}
+		for (int v = 0; v < numVariables; ++v) {
+			targetsOf[v] = new int[numTargetsOf[v]];
+			numTargetsOf[v] = 0;
+		}
+		for (int t = 0; t < targets.length; ++t) {
+			for (int i = cellStart[t]; i < cellStart[t + 1]; ++i) {
+				int v = variableAt[i];
+				targetsOf[v][numTargetsOf[v]++] = t; // t goes up, so each list is sorted
+			}
+		}
+
+		byte[] settled = new byte[numVariables];
+		int[] needs = targets.clone();
+		if (!settle(variableAt, targetsOf, settled, needs)) return null;
+		checkCancelled();
+
+		Component[] components = buildComponents(targetsOf, settled, needs);
+		checkCancelled();
+		for (Component component : components) {
+			if (component.numGroups > MAX_GROUPS) return null;
+		}
+
+		List<Enumeration> tasks = new ArrayList<>();
+		for (Component component : components) {
+			tasks.add(new Enumeration(component));
+		}
+		Counts[] counts = new Counts[components.length];
+		parallelism = pool.getParallelism();
+		pool.invoke(new RecursiveTask<Void>() {
+			@Override
+			protected Void compute() {
+				invokeAll(tasks);
+				for (int c = 0; c < counts.length; ++c) {
+					counts[c] = tasks.get(c).join();
+				}
+				return null;
+			}
+		});
+
+		return combine(frontier, settled, components, counts);
+	}
+
+	private void checkCancelled() {
+		if (cancelled) throw new CancellationException();
+	}
+
+	/**
+	 * Settles every variable one number decides on its own: a number with all its bombs makes the rest safe,
+	 * and a number that needs every cell left makes them all bombs. Each settled variable can settle more,
+	 * so a board that is solved without guessing ends up with nothing left to enumerate
+	 *
+	 * @param variableAt the variable of each entry in cells
+	 * @param targetsOf  the numbers next to each variable
+	 * @param settled    set to SAFE or BOMB for every variable that is settled, the rest stay UNSETTLED
+	 * @param needs      what each number needs, this is lowered by the bombs it is given
+	 * @return false if some number can't be right
+	 */
+	private boolean settle(int[] variableAt, int[][] targetsOf, byte[] settled, int[] needs) {
+		int[] open = new int[targets.length]; // The cells next to each number that aren't settled
+		IntQueue queue = new IntQueue();
+		for (int t = 0; t < targets.length; ++t) {
+			open[t] = cellStart[t + 1] - cellStart[t];
+			queue.add(t);
+		}
+
+		while (!queue.isEmpty()) {
+			int t = queue.poll();
+			if (needs[t] < 0 || needs[t] > open[t]) return false;
+			if (open[t] == 0 || (needs[t] != 0 && needs[t] != open[t])) continue;
+
+			byte value = (needs[t] == 0) ? SAFE : BOMB;
+			for (int i = cellStart[t]; i < cellStart[t + 1]; ++i) {
+				int v = variableAt[i];
+				if (settled[v] != UNSETTLED) continue;
+
+				settled[v] = value;
+				for (int other : targetsOf[v]) {
+					--open[other];
+					if (value == BOMB) --needs[other];
+					queue.add(other);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Puts the variables that aren't settled in groups, and the groups in components
+	 *
+	 * @param targetsOf the numbers next to each variable
+	 * @param settled   which variables are settled, these are left out
+	 * @param needs     what each number needs from the variables that aren't settled
+	 * @return the components, each with the numbers it uses
+	 */
+	private Component[] buildComponents(int[][] targetsOf, byte[] settled, int[] needs) {
+		int numVariables = targetsOf.length;
+
+		// Variables with the same numbers end up next to each other once sorted by their numbers
+		int numOpen = 0;
+		for (byte value : settled) {
+			if (value == UNSETTLED) ++numOpen;
+		}
+		Integer[] byTargets = new Integer[numOpen];
+		numOpen = 0;
+		for (int v = 0; v < numVariables; ++v) {
+			if (settled[v] == UNSETTLED) byTargets[numOpen++] = v;
+		}
+		Arrays.sort(byTargets, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Arrays.compare(targetsOf[a], targetsOf[b]);
+			}
+		});
+
+		int[] groupOf = new int[numVariables];
+		List<int[]> groupTargets = new ArrayList<>();
+		List<Integer> groupSizes = new ArrayList<>();
+		for (int i = 0; i < numOpen; ++i) {
+			int v = byTargets[i];
+			if (i == 0 || !Arrays.equals(targetsOf[v], targetsOf[byTargets[i - 1]])) {
+				groupTargets.add(targetsOf[v]);
+				groupSizes.add(0);
+			}
+			int g = groupTargets.size() - 1;
+			groupOf[v] = g;
+			groupSizes.set(g, groupSizes.get(g) + 1);
+		}
+		int numGroups = groupTargets.size();
+
+		int[][] groupVariables = new int[numGroups][];
+		int[] filled = new int[numGroups];
+		for (int g = 0; g < numGroups; ++g) {
+			groupVariables[g] = new int[groupSizes.get(g)];
+		}
+		for (int v = 0; v < numVariables; ++v) {
+			if (settled[v] == UNSETTLED) groupVariables[groupOf[v]][filled[groupOf[v]]++] = v;
+		}
+
+		// Groups that share a number are in the same component
+		int[] parent = new int[numGroups];
+		for (int g = 0; g < numGroups; ++g) {
+			parent[g] = g;
+		}
+		int[] firstGroupOf = new int[targets.length];
+		Arrays.fill(firstGroupOf, -1);
+		for (int g = 0; g < numGroups; ++g) {
+			for (int t : groupTargets.get(g)) {
+				if (firstGroupOf[t] == -1) {
+					firstGroupOf[t] = g;
+				} else {
+					parent[find(parent, g)] = find(parent, firstGroupOf[t]);
+				}
+			}
+		}
+
+		Map<Integer, List<Integer>> groupsByRoot = new LinkedHashMap<>();
+		for (int g = 0; g < numGroups; ++g) {
+			int root = find(parent, g);
+			if (!groupsByRoot.containsKey(root)) groupsByRoot.put(root, new ArrayList<>());
+			groupsByRoot.get(root).add(g);
+		}
+
+		Component[] components = new Component[groupsByRoot.size()];
+		int c = 0;
+		for (List<Integer> groups : groupsByRoot.values()) {
+			components[c++] = new Component(groups, groupTargets, groupSizes, groupVariables, needs);
+		}
+		return components;
+	}
+
+	private static int find(int[] parent, int g) {
+		while (parent[g] != g) {
+			parent[g] = parent[parent[g]];
+			g = parent[g];
+		}
+		return g;
+	}
+
+	/**
+	 * Puts the counts of every component together with the interior, and works out the chance for every variable
+	 */
+	private MineProbabilities combine(int[] frontier, byte[] settled, Component[] components, Counts[] counts) {
+		int numComponents = components.length;
+		int numInterior = numHidden - frontier.length;
+
+		// The settled bombs are in every way there is, so the rest only have to make up the others
+		double[] probabilities = new double[frontier.length];
+		int bombsLeft = numBombs;
+		for (int v = 0; v < frontier.length; ++v) {
+			if (settled[v] == BOMB) {
+				probabilities[v] = 1;
+				--bombsLeft;
+			}
+		}
+
+		int maxFrontierBombs = 0;
+		for (Counts count : counts) {
+			maxFrontierBombs += count.ways.length - 1;
+		}
+
+		// The ways to put the bombs the components don't have in the interior, C(numInterior, bombsLeft - K) for K bombs in the components
+		int first = Math.max(0, bombsLeft - numInterior);
+		int last = Math.min(maxFrontierBombs, bombsLeft);
+		if (first > last) return null; // The frontier can't hold few or many enough bombs
+		double[] interiorLogWays = new double[last - first + 1];
+		for (int K = first + 1; K <= last; ++K) {
+			// C(n, m - 1) = C(n, m) * m / (n - m + 1), with m = bombsLeft - K + 1
+			int m = bombsLeft - K + 1;
+			interiorLogWays[K - first] = interiorLogWays[K - first - 1] + Math.log((double) m / (numInterior - m + 1));
+		}
+
+		double[][] logWays = new double[numComponents][];
+		for (int c = 0; c < numComponents; ++c) {
+			logWays[c] = Series.log(counts[c].ways);
+		}
+
+		// The ways for components 0 to c - 1 together, by number of bombs, are needed for every c, from the last to the first.
+		// Keeping all of them would take components * frontier doubles, so only every step-th is kept,
+		// and the ones in between are made again from it, a block at a time, when the loop below gets to them
+		int step = (int) Math.ceil(Math.sqrt(numComponents + 1));
+		Series[] checkpoints = new Series[numComponents / step + 1];
+		Series prefix = new Series(0, new double[]{0});
+		for (int c = 0; c < numComponents; ++c) {
+			checkCancelled();
+			if (c % step == 0) checkpoints[c / step] = prefix;
+			prefix = prefix.convolve(logWays[c]);
+		}
+
+		// after is the ways for the components after c and the interior, when they have to make up j more bombs.
+		// The ways for component c with k bombs, times everything else, is then the sum over a of before[a] * after[a + k]
+		Series after = new Series(first, interiorLogWays);
+		Series[] block = new Series[step];
+		int blockStart = numComponents; // The component block[0] is before
+		double expectedFrontierBombs = 0;
+		for (int c = numComponents - 1; c >= 0; --c) {
+			checkCancelled();
+			if (c < blockStart) {
+				blockStart = c / step * step;
+				block[0] = checkpoints[c / step];
+				for (int i = blockStart; i < c; ++i) {
+					block[i - blockStart + 1] = block[i - blockStart].convolve(logWays[i]);
+				}
+			}
+			Series before = block[c - blockStart];
+			Counts count = counts[c];
+
+			// others[k], the log of the ways for everything else when this component has k bombs
+			double[] others = new double[count.ways.length];
+			double most = Double.NEGATIVE_INFINITY; // The largest log of the ways for the whole board, over every k
+			for (int k = 0; k < others.length; ++k) {
+				others[k] = before.logSumProduct(after, k);
+				most = Math.max(most, logWays[c][k] + others[k]);
+			}
+			if (most == Double.NEGATIVE_INFINITY) return null; // No way for the whole board to be right
+
+			// Scaled so the k with the most ways counts as 1, so total is at least 1
+			double total = 0;
+			for (int k = 0; k < others.length; ++k) {
+				others[k] = Math.exp(others[k] - most);
+				total += count.ways[k] * others[k];
+			}
+
+			Component component = components[c];
+			for (int g = 0; g < component.numGroups; ++g) {
+				double bombs = 0;
+				for (int k = 0; k < others.length; ++k) {
+					bombs += count.bombs[g][k] * others[k];
+				}
+				double probability = bombs / total / component.sizes[g];
+				for (int v : component.variables[g]) {
+					probabilities[v] = probability;
+				}
+				expectedFrontierBombs += probability * component.sizes[g];
+			}
+
+			after = after.correlate(logWays[c]);
+		}
+
+		double interiorProbability = (numInterior > 0) ? Math.min(1, Math.max(0, (bombsLeft - expectedFrontierBombs) / numInterior)) : 0;
+		return new MineProbabilities(frontier, probabilities, interiorProbability);
+	}
+
+	/**
+	 * Ways by number of bombs, as logs, so the ways for the whole board fit in a double however big it is.
+	 * Nothing is ever dropped, a value that is tiny next to the largest one in here can still be the one that matters
+	 * once it is multiplied by the ways for the rest of the board. Everything before offset and after the values is no ways at all
+	 */
+	private static final class Series {
+		final int offset;
+		final double[] logs; // NEGATIVE_INFINITY for no ways
+
+		Series(int offset, double[] logs) {
+			this.offset = offset;
+			this.logs = logs;
+		}
+
+		int end() {
+			return offset + logs.length;
+		}
+
+		double get(int i) {
+			return (i >= offset && i < end()) ? logs[i - offset] : Double.NEGATIVE_INFINITY;
+		}
+
+		static double[] log(double[] ways) {
+			double[] logs = new double[ways.length];
+			for (int i = 0; i < ways.length; ++i) {
+				logs[i] = Math.log(ways[i]); // NEGATIVE_INFINITY for 0
+			}
+			return logs;
+		}
+
+		/**
+		 * Self-explanatory
+		 *
+		 * @param logWays the logs of ways by number of bombs, starting at 0
+		 * @return the ways for this and logWays together, result[i] is the sum of this[a] * ways[i - a]
+		 */
+		Series convolve(double[] logWays) {
+			double[] result = new double[logs.length + logWays.length - 1];
+			for (int i = 0; i < result.length; ++i) {
+				int from = Math.max(0, i - (logs.length - 1)), to = Math.min(logWays.length - 1, i);
+				double most = Double.NEGATIVE_INFINITY;
+				for (int b = from; b <= to; ++b) {
+					most = Math.max(most, logs[i - b] + logWays[b]);
+				}
+				double sum = 0;
+				if (most != Double.NEGATIVE_INFINITY) {
+					for (int b = from; b <= to; ++b) {
+						sum += Math.exp(logs[i - b] + logWays[b] - most);
+					}
+				}
+				result[i] = most + Math.log(sum); // Stays NEGATIVE_INFINITY if there are no ways
+			}
+			return new Series(offset, result);
+		}
+
+		/**
+		 * Self-explanatory
+		 *
+		 * @param logWays the logs of ways by number of bombs, starting at 0
+		 * @return result[j] is the sum of ways[b] * this[j + b], the ways for both when they have to make up j bombs
+		 */
+		Series correlate(double[] logWays) {
+			int start = Math.max(0, offset - (logWays.length - 1));
+			double[] result = new double[end() - start];
+			for (int j = start; j < end(); ++j) {
+				double most = Double.NEGATIVE_INFINITY;
+				for (int b = 0; b < logWays.length; ++b) {
+					most = Math.max(most, logWays[b] + get(j + b));
+				}
+				double sum = 0;
+				if (most != Double.NEGATIVE_INFINITY) {
+					for (int b = 0; b < logWays.length; ++b) {
+						sum += Math.exp(logWays[b] + get(j + b) - most);
+					}
+				}
+				result[j - start] = most + Math.log(sum);
+			}
+			return new Series(start, result);
+		}
+
+		/**
+		 * Self-explanatory
+		 *
+		 * @return the log of the sum over a of this[a] * other[a + k]
+		 */
+		double logSumProduct(Series other, int k) {
+			int from = Math.max(offset, other.offset - k), to = Math.min(end(), other.end() - k);
+			double most = Double.NEGATIVE_INFINITY;
+			for (int a = from; a < to; ++a) {
+				most = Math.max(most, logs[a - offset] + other.logs[a + k - other.offset]);
+			}
+			if (most == Double.NEGATIVE_INFINITY) return most;
+
+			double sum = 0;
+			for (int a = from; a < to; ++a) {
+				sum += Math.exp(logs[a - offset] + other.logs[a + k - other.offset] - most);
+			}
+			return most + Math.log(sum);
+		}
+	}
+
+	/**
+	 * Groups that share numbers, and the numbers they share, with everything renumbered from 0 so the enumeration only uses small arrays
+	 */
+	private final class Component {
+		final int numGroups;
+		final int[] sizes; // The number of cells in each group
+		final int[][] variables; // The variables in each group
+		final int[][] groupTargets; // The numbers next to each group, renumbered
+		final int[] targetValues; // What each number needs
+		final int[] targetCapacity; // The number of cells next to each number, all of them hidden
+		final int maxBombs;
+
+		Component(List<Integer> groups, List<int[]> allGroupTargets, List<Integer> allGroupSizes, int[][] allGroupVariables, int[] needs) {
+			numGroups = groups.size();
+			sizes = new int[numGroups];
+			groupTargets = new int[numGroups][];
+
+			// Numbering the groups in the order they are found by walking the numbers makes each number get all its groups close together,
+			// so a wrong guess is noticed soon after it is made
+			Map<Integer, Integer> localGroup = new HashMap<>();
+			Map<Integer, Integer> localTarget = new LinkedHashMap<>();
+			ArrayDeque<Integer> queue = new ArrayDeque<>();
+			Map<Integer, List<Integer>> groupsOfTarget = new HashMap<>();
+			for (int g : groups) {
+				for (int t : allGroupTargets.get(g)) {
+					if (!groupsOfTarget.containsKey(t)) groupsOfTarget.put(t, new ArrayList<>());
+					groupsOfTarget.get(t).add(g);
+				}
+			}
+			localGroup.put(groups.get(0), 0);
+			queue.add(groups.get(0));
+			while (!queue.isEmpty()) {
+				int g = queue.poll();
+				for (int t : allGroupTargets.get(g)) {
+					if (localTarget.containsKey(t)) continue;
+					localTarget.put(t, localTarget.size());
+					for (int other : groupsOfTarget.get(t)) {
+						if (!localGroup.containsKey(other)) {
+							localGroup.put(other, localGroup.size());
+							queue.add(other);
+						}
+					}
+				}
+			}
+
+			targetValues = new int[localTarget.size()];
+			targetCapacity = new int[localTarget.size()];
+			for (Map.Entry<Integer, Integer> entry : localTarget.entrySet()) {
+				targetValues[entry.getValue()] = needs[entry.getKey()];
+			}
+
+			int total = 0;
+			variables = new int[numGroups][];
+			for (int g : groups) {
+				int local = localGroup.get(g);
+				sizes[local] = allGroupSizes.get(g);
+				total += sizes[local];
+				variables[local] = allGroupVariables[g];
+
+				int[] globalTargets = allGroupTargets.get(g);
+				groupTargets[local] = new int[globalTargets.length];
+				for (int i = 0; i < globalTargets.length; ++i) {
+					groupTargets[local][i] = localTarget.get(globalTargets[i]);
+					targetCapacity[groupTargets[local][i]] += sizes[local];
+				}
+			}
+			maxBombs = total;
+		}
+	}
+
+	/**
+	 * What the enumeration of a component, or part of one, found
+	 */
+	private static final class Counts {
+		final double[] ways; // ways[k] is the number of ways the component can have k bombs
+		final double[][] bombs; // bombs[g][k] is the total bombs in group g over all those ways
+
+		Counts(int numGroups, int maxBombs) {
+			ways = new double[maxBombs + 1];
+			bombs = new double[numGroups][maxBombs + 1];
+		}
+
+		void add(Counts other) {
+			for (int k = 0; k < ways.length; ++k) {
+				ways[k] += other.ways[k];
+			}
+			for (int g = 0; g < bombs.length; ++g) {
+				for (int k = 0; k < ways.length; ++k) {
+					bombs[g][k] += other.bombs[g][k];
+				}
+			}
+		}
+
+		/**
+		 * Scales everything so the largest number of ways is 1, the chances only depend on the ratios
+		 */
+		void normalize() {
+			double max = 0;
+			for (double w : ways) {
+				max = Math.max(max, w);
+			}
+			if (max == 0) return;
+			for (int k = 0; k < ways.length; ++k) {
+				ways[k] /= max;
+			}
+			for (double[] groupBombs : bombs) {
+				for (int k = 0; k < groupBombs.length; ++k) {
+					groupBombs[k] /= max;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Enumerates the ways to put bombs in the groups of a component, from group pos on, given the values of the groups before it.
+	 * Each group is given every number of bombs that can still satisfy all its numbers, so every complete assignment is valid
+	 */
+	private final class Enumeration extends RecursiveTask<Counts> {
+		private final Component component;
+		private final int pos;
+		private final int depth;
+		private final int bombsSoFar;
+		private final double waysSoFar;
+		private final int[] values; // The number of bombs in each group
+		private final int[] sums; // The bombs next to each number so far
+		private final int[] capacity; // The cells next to each number in groups that don't have a value yet
+
+		private int nodes = 0;
+
+		Enumeration(Component component) {
+			this(component, 0, 0, 0, 1, new int[component.numGroups], new int[component.targetValues.length], component.targetCapacity.clone());
+		}
+
+		private Enumeration(Component component, int pos, int depth, int bombsSoFar, double waysSoFar, int[] values, int[] sums, int[] capacity) {
+			this.component = component;
+			this.pos = pos;
+			this.depth = depth;
+			this.bombsSoFar = bombsSoFar;
+			this.waysSoFar = waysSoFar;
+			this.values = values;
+			this.sums = sums;
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected Counts compute() {
+			checkCancelled();
+
+			// Split while there are more groups left than one task should do, and not many more tasks than threads
+			if (component.numGroups - pos >= MIN_GROUPS_TO_SPLIT && (1 << depth) < 4 * parallelism
+					&& (long) component.numGroups * (component.maxBombs + 1) <= MAX_SPLIT_COUNTS) {
+				Counts counts = split();
+				if (pos == 0) counts.normalize();
+				return counts;
+			}
+
+			Counts counts = new Counts(component.numGroups, component.maxBombs);
+			search(pos, bombsSoFar, waysSoFar, counts);
+			if (pos == 0) counts.normalize();
+			return counts;
+		}
+
+		private Counts split() {
+			int g = pos;
+			int size = component.sizes[g];
+			int[] groupTargets = component.groupTargets[g];
+
+			int lo = 0, hi = size;
+			for (int t : groupTargets) {
+				int needed = component.targetValues[t] - sums[t];
+				hi = Math.min(hi, needed);
+				lo = Math.max(lo, needed - (capacity[t] - size));
+			}
+
+			List<Enumeration> children = new ArrayList<>();
+			for (int j = lo; j <= hi; ++j) {
+				int[] childValues = values.clone();
+				int[] childSums = sums.clone();
+				int[] childCapacity = capacity.clone();
+				childValues[g] = j;
+				for (int t : groupTargets) {
+					childSums[t] += j;
+					childCapacity[t] -= size;
+				}
+				children.add(new Enumeration(component, pos + 1, depth + 1, bombsSoFar + j, waysSoFar * BINOMIAL[size][j],
+						childValues, childSums, childCapacity));
+			}
+
+			Counts counts = new Counts(component.numGroups, component.maxBombs);
+			for (Enumeration child : invokeAll(children)) {
+				counts.add(child.join());
+			}
+			return counts;
+		}
+
+		private void search(int g, int bombs, double ways, Counts counts) {
+			if (g == component.numGroups) {
+				counts.ways[bombs] += ways;
+				for (int i = 0; i < component.numGroups; ++i) {
+					counts.bombs[i][bombs] += ways * values[i];
+				}
+				return;
+			}
+			if (++nodes % NODES_PER_CANCEL_CHECK == 0) checkCancelled();
+
+			int size = component.sizes[g];
+			int[] groupTargets = component.groupTargets[g];
+
+			// The fewest and most bombs this group can have, so every number can still get exactly what it needs
+			int lo = 0, hi = size;
+			for (int t : groupTargets) {
+				int needed = component.targetValues[t] - sums[t];
+				hi = Math.min(hi, needed);
+				lo = Math.max(lo, needed - (capacity[t] - size));
+			}
+			if (lo > hi) return;
+
+			for (int t : groupTargets) {
+				capacity[t] -= size;
+			}
+			for (int j = lo; j <= hi; ++j) {
+				values[g] = j;
+				for (int t : groupTargets) {
+					sums[t] += j;
+				}
+				search(g + 1, bombs + j, ways * BINOMIAL[size][j], counts);
+				for (int t : groupTargets) {
+					sums[t] -= j;
+				}
+			}
+			values[g] = 0;
+			for (int t : groupTargets) {
+				capacity[t] += size;
+			}
+		}
+	}
+}
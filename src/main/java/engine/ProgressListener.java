@@ -0,0 +1,14 @@
+package engine;
+
+/**
+ * Gets told how far along a long running job is
+ */
+public interface ProgressListener {
+	/**
+	 * Called every so often while the job runs, from the thread doing the job
+	 *
+	 * @param done  how much of the job is done
+	 * @param total how much there is to do in total
+	 */
+	void progress(long done, long total);
+}
@@ -0,0 +1,327 @@
+package engine;
+
+import exceptions.InvalidSaveException;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * A recording of a game, the seed it was made from and every move made on it, with the time each move was made
+ * <p>
+ * Unlike the moves a Minefield keeps, this also has the move that lost the game, and how the game ended.
+ * The file format is:
+ * <pre>
+ * int  MAGIC
+ * byte VERSION
+ * int  rows
+ * int  cols
+ * int  bombs
+ * long seed
+ * int  number of moves
+ * byte PLAYING, WON or LOST
+ * int  CRC32C of the header so far
+ * the moves, each is a byte with the type from MoveList, then the row, the column,
+ *      and the milliseconds since the move before it, each as an unsigned varint
+ * int  CRC32C of everything before it
+ * </pre>
+ * A varint is 7 bits per byte, lowest first, the high bit is set on every byte but the last,
+ * so most moves only take 5 to 7 bytes
+ */
+public class Replay {
+	public static final int MAGIC = 0x4D535250; // "MSRP"
+	public static final int VERSION = 1;
+	public static final String EXTENSION = ".replay";
+
+	public static final byte PLAYING = 0;
+	public static final byte WON = 1;
+	public static final byte LOST = 2;
+
+	private static final int HEADER_SIZE = 34; // MAGIC, VERSION, rows, cols, bombs, seed, moves, result, checksum
+	private static final int TRAILER_SIZE = 4;
+	private static final int MAX_MOVE_SIZE = 16; // type, and three varints of at most 5 bytes
+
+	private final int numRows;
+	private final int numCols;
+	private final int numBombs;
+	private final long seed;
+
+	private final MoveList moves = new MoveList();
+	private int[] times = new int[64]; // Milliseconds since the game started, the same length as the arrays in moves
+	private byte result = PLAYING;
+
+	/**
+	 * Constructor, starts an empty recording
+	 *
+	 * @param rows  the number of rows
+	 * @param cols  the number of columns
+	 * @param bombs the number of bombs
+	 * @param seed  the seed the board is made from
+	 */
+	public Replay(int rows, int cols, int bombs, long seed) {
+		this.numRows = rows;
+		this.numCols = cols;
+		this.numBombs = bombs;
+		this.seed = seed;
+	}
+
+	/**
+	 * Constructor, starts recording a game that is already being played, the moves made so far are added with a time of 0
+	 *
+	 * @param minefield the game, it has to have a seed
+	 * @throws IllegalArgumentException if the game has no seed
+	 */
+	public Replay(Minefield minefield) {
+		this(minefield.getNumRows(), minefield.getNumCols(), minefield.getNumBombs(), minefield.getSeed());
+		if (!minefield.hasSeed()) {
+			throw new IllegalArgumentException("Only a game with a seed can be recorded");
+		}
+
+		MoveList made = minefield.getMoves();
+		for (int i = 0; i < made.size(); ++i) {
+			add(made.getType(i), made.getRow(i), made.getCol(i), 0);
+		}
+	}
+
+	/**
+	 * Adds a move to the end of the recording
+	 *
+	 * @param type REVEAL, CHORD, FLAG or UNFLAG from MoveList
+	 * @param row  the row of the cell
+	 * @param col  the column of the cell
+	 * @param time the milliseconds since the game started, it can't be less than the time of the move before it
+	 * @throws IllegalArgumentException if the time is less than the time of the move before it
+	 */
+	public void add(byte type, int row, int col, int time) {
+		int i = moves.size();
+		if (i > 0 && time < times[i - 1]) {
+			throw new IllegalArgumentException("time can not go backwards");
+		}
+
+		if (i == times.length) times = Arrays.copyOf(times, i * 2);
+		times[i] = time;
+		moves.add(type, row, col);
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param result PLAYING, WON or LOST
+	 */
+	public void setResult(byte result) {
+		this.result = result;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return PLAYING, WON or LOST
+	 */
+	public byte getResult() {
+		return this.result;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return every move, in order
+	 */
+	public MoveList getMoves() {
+		return this.moves;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param i which move, in the range [0, getMoves().size())
+	 * @return the milliseconds since the game started when the move was made
+	 */
+	public int getTime(int i) {
+		if (i < 0 || i >= moves.size()) {
+			throw new IndexOutOfBoundsException(i);
+		}
+		return times[i];
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the time of the last move, 0 if there are no moves
+	 */
+	public int getDuration() {
+		return (moves.size() == 0) ? 0 : times[moves.size() - 1];
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.numRows
+	 */
+	public int getNumRows() {
+		return this.numRows;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.numCols
+	 */
+	public int getNumCols() {
+		return this.numCols;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.numBombs
+	 */
+	public int getNumBombs() {
+		return this.numBombs;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.seed
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * Writes the recording to a file, replacing it if it exists
+	 *
+	 * @param path the file to write
+	 * @throws IOException if writing fails
+	 */
+	public void write(Path path) throws IOException {
+		Files.write(path, toBytes());
+	}
+
+	/**
+	 * Encodes the recording in the file format
+	 *
+	 * @return the bytes of the file
+	 */
+	public byte[] toBytes() {
+		int numMoves = moves.size();
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8,
+				HEADER_SIZE + (long) numMoves * MAX_MOVE_SIZE + TRAILER_SIZE));
+		buffer.putInt(MAGIC).put((byte) VERSION);
+		buffer.putInt(numRows).putInt(numCols).putInt(numBombs).putLong(seed).putInt(numMoves).put(result);
+
+		CRC32C crc = new CRC32C();
+		crc.update(buffer.array(), 0, buffer.position());
+		buffer.putInt((int) crc.getValue());
+
+		int lastTime = 0;
+		for (int i = 0; i < numMoves; ++i) {
+			buffer.put(moves.getType(i));
+			putVarint(buffer, moves.getRow(i));
+			putVarint(buffer, moves.getCol(i));
+			putVarint(buffer, times[i] - lastTime);
+			lastTime = times[i];
+		}
+
+		crc.reset();
+		crc.update(buffer.array(), 0, buffer.position());
+		buffer.putInt((int) crc.getValue());
+		return Arrays.copyOf(buffer.array(), buffer.position());
+	}
+
+	/**
+	 * Reads a recording from a file, the moves are not checked, Replayer does that when it plays them
+	 *
+	 * @param path the file to read
+	 * @return the recording
+	 * @throws IOException          if reading fails
+	 * @throws InvalidSaveException if it is not a recording, it is from a newer version, or it is damaged
+	 */
+	public static Replay read(Path path) throws IOException, InvalidSaveException {
+		return fromBytes(Files.readAllBytes(path));
+	}
+
+	/**
+	 * Decodes a recording from the file format
+	 *
+	 * @param bytes the bytes of the file
+	 * @return the recording
+	 * @throws InvalidSaveException if it is not a recording, it is from a newer version, or it is damaged
+	 */
+	public static Replay fromBytes(byte[] bytes) throws InvalidSaveException {
+		if (bytes.length < HEADER_SIZE + TRAILER_SIZE) throw new InvalidSaveException("The replay file is cut off");
+
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if (buffer.getInt(0) != MAGIC) throw new InvalidSaveException("Not a replay file");
+		int version = buffer.get(4) & 0xFF;
+		if (version != VERSION) throw new InvalidSaveException("Unsupported replay version " + version);
+
+		CRC32C crc = new CRC32C();
+		crc.update(bytes, 0, HEADER_SIZE - 4);
+		if ((int) crc.getValue() != buffer.getInt(HEADER_SIZE - 4)) throw new InvalidSaveException("The replay file is damaged");
+		crc.reset();
+		crc.update(bytes, 0, bytes.length - TRAILER_SIZE);
+		if ((int) crc.getValue() != buffer.getInt(bytes.length - TRAILER_SIZE)) throw new InvalidSaveException("The replay file is damaged");
+
+		int rows = buffer.getInt(5);
+		int cols = buffer.getInt(9);
+		int bombs = buffer.getInt(13);
+		int numMoves = buffer.getInt(25);
+		byte result = buffer.get(29);
+		if (rows <= 0 || cols <= 0 || rows > Minefield.MAX_ROWS || cols > Minefield.MAX_COLS || bombs < 0 || bombs > rows * cols || numMoves < 0
+				|| result < PLAYING || result > LOST) {
+			throw new InvalidSaveException("Invalid dimensions");
+		}
+
+		Replay replay = new Replay(rows, cols, bombs, buffer.getLong(17));
+		replay.result = result;
+
+		buffer.position(HEADER_SIZE).limit(bytes.length - TRAILER_SIZE);
+		try {
+			int time = 0;
+			for (int i = 0; i < numMoves; ++i) {
+				byte type = buffer.get();
+				int row = getVarint(buffer);
+				int col = getVarint(buffer);
+				time += getVarint(buffer);
+				replay.add(type, row, col, time);
+			}
+		} catch (BufferUnderflowException ex) {
+			throw new InvalidSaveException("The replay file is cut off");
+		} catch (IllegalArgumentException ex) {
+			throw new InvalidSaveException("The replay file is damaged");
+		}
+		if (buffer.hasRemaining()) throw new InvalidSaveException("The replay file is the wrong size");
+		return replay;
+	}
+
+	private static void putVarint(ByteBuffer buffer, int value) {
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) (value | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * Reads an unsigned varint, only values that fit in a non-negative int are allowed
+	 *
+	 * @throws IllegalArgumentException if the value is too big
+	 */
+	private static int getVarint(ByteBuffer buffer) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				if (value < 0 || (shift == 28 && (b & 0x7F) > 0x7)) throw new IllegalArgumentException("varint too big");
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("varint too long");
+	}
+}
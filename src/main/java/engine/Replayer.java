@@ -0,0 +1,71 @@
+package engine;
+
+import exceptions.BombException;
+import exceptions.InvalidSaveException;
+
+/**
+ * Plays recordings without any of the GUI, as fast as the moves can be made, to check that they still end the way they did
+ */
+public final class Replayer {
+	private Replayer() {
+	}
+
+	/**
+	 * Makes the board from the seed of a recording, then makes every move on it
+	 *
+	 * @param replay the recording to play
+	 * @return the game after the last move
+	 * @throws InvalidSaveException if a move is not valid, or there are moves after the game was lost
+	 */
+	public static Minefield play(Replay replay) throws InvalidSaveException {
+		Minefield minefield = new Minefield(replay.getNumRows(), replay.getNumCols(), replay.getNumBombs(), replay.getSeed());
+		play(replay, minefield, 0, replay.getMoves().size());
+		return minefield;
+	}
+
+	/**
+	 * Makes some of the moves of a recording, this is how the GUI plays a recording a few moves at a time
+	 *
+	 * @param replay    the recording
+	 * @param minefield the game made from the seed of the recording, with the moves before from already made
+	 * @param from      the first move to make
+	 * @param to        one after the last move to make
+	 * @throws InvalidSaveException if a move is not valid, or there are moves after the game was lost
+	 */
+	public static void play(Replay replay, Minefield minefield, int from, int to) throws InvalidSaveException {
+		MoveList moves = replay.getMoves();
+		for (int i = from; i < to; ++i) {
+			if (minefield.isLost()) throw new InvalidSaveException("Move " + (i + 1) + " is after the game was lost");
+
+			try {
+				if (!MoveList.replay(minefield, moves.getType(i), moves.getRow(i), moves.getCol(i))) {
+					throw new InvalidSaveException("Invalid move " + (i + 1));
+				}
+			} catch (BombException ex) {
+				// The game is lost, which is checked against the result of the recording afterwards
+			}
+		}
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param minefield the game
+	 * @return WON, LOST or PLAYING from Replay
+	 */
+	public static byte getResult(Minefield minefield) {
+		if (minefield.isLost()) return Replay.LOST;
+		return (minefield.isWon()) ? Replay.WON : Replay.PLAYING;
+	}
+
+	/**
+	 * Plays a recording and checks that it ends the same way it did when it was recorded
+	 *
+	 * @param replay the recording
+	 * @return true if the game ends the same way
+	 * @throws InvalidSaveException if a move is not valid, or there are moves after the game was lost
+	 */
+	public static boolean check(Replay replay) throws InvalidSaveException {
+		return getResult(play(replay)) == replay.getResult();
+	}
+}
@@ -0,0 +1,328 @@
+package engine;
+
+import exceptions.InvalidSaveException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Keeps track of every save in a directory, so nothing has to look at the files to list them
+ * <p>
+ * Each save is a file called name.mine, or name.txt for the old text format.
+ * What each save looks like is kept in an index file, so the saves don't have to be read every time the game starts.
+ * Once started, a background thread brings the index up to date with the directory,
+ * then watches the directory for saves that are added, changed or removed.
+ * <p>
+ * All the methods are safe to call from any thread, only getSaves and contains are meant for the Event Dispatch Thread,
+ * they never touch the file system
+ */
+public class SaveCatalog {
+	public static final String SAVE_EXTENSION = ".mine";
+	public static final String TEXT_SAVE_EXTENSION = ".txt"; // The old save format, only loaded
+	public static final int MAX_NAME_LENGTH = 64;
+
+	private static final String INDEX_FILE = "catalog.idx";
+	private static final String INDEX_HEADER = "# minesweeper save index 1";
+
+	private final Path dir;
+	private final HashMap<String, SaveInfo> saves = new HashMap<>();
+	private volatile boolean loaded = false;
+
+	/**
+	 * Constructor, nothing is read until start is called
+	 *
+	 * @param dir the directory the saves are in, it is created if it doesn't exist
+	 */
+	public SaveCatalog(Path dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * Starts the background thread that reads the index and watches the directory
+	 */
+	public void start() {
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watch();
+			}
+		}, "save-catalog");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Checks if a name can be used for a save, it has to be a valid file name on every system,
+	 * so only letters, digits, spaces, '_', '-' and '.' are allowed, and it has to start with a letter or digit
+	 *
+	 * @param name the name to check
+	 * @return true if the name can be used
+	 */
+	public static boolean isValidName(String name) {
+		if (name == null || name.isEmpty() || name.length() > MAX_NAME_LENGTH) return false;
+		if (!Character.isLetterOrDigit(name.charAt(0))) return false;
+
+		for (int i = 0; i < name.length(); ++i) {
+			char c = name.charAt(i);
+			if (!Character.isLetterOrDigit(c) && c != ' ' && c != '_' && c != '-' && c != '.') return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param name the name of the save
+	 * @return where the save is written
+	 */
+	public Path getSavePath(String name) {
+		return dir.resolve(name + SAVE_EXTENSION);
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param name the name of the save
+	 * @return where an old text save with this name would be
+	 */
+	public Path getTextSavePath(String name) {
+		return dir.resolve(name + TEXT_SAVE_EXTENSION);
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return true once the index has been brought up to date with the directory
+	 */
+	public boolean isLoaded() {
+		return this.loaded;
+	}
+
+	/**
+	 * Gets every save, without touching the file system
+	 *
+	 * @return a copy of every save, the most recently written first
+	 */
+	public synchronized List<SaveInfo> getSaves() {
+		ArrayList<SaveInfo> list = new ArrayList<>(saves.values());
+		list.sort(new Comparator<SaveInfo>() {
+			@Override
+			public int compare(SaveInfo a, SaveInfo b) {
+				int byTime = Long.compare(b.getLastModified(), a.getLastModified());
+				return (byTime != 0) ? byTime : a.getName().compareTo(b.getName());
+			}
+		});
+		return list;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param name the name of the save
+	 * @return true if there is a save with this name
+	 */
+	public synchronized boolean contains(String name) {
+		return saves.containsKey(name);
+	}
+
+	/**
+	 * Records a game that was just saved, this is how the index knows how far along the game is
+	 *
+	 * @param name      the name it was saved as
+	 * @param minefield the game that was saved
+	 * @throws IOException if the index can't be written
+	 */
+	public void saved(String name, Minefield minefield) throws IOException {
+		long lastModified = Files.getLastModifiedTime(getSavePath(name)).toMillis();
+		SaveInfo info = new SaveInfo(name, minefield.getNumRows(), minefield.getNumCols(), minefield.getNumBombs(),
+				minefield.getNumRevealed(), lastModified);
+
+		synchronized (this) {
+			saves.put(name, info);
+			writeIndex();
+		}
+	}
+
+	private void watch() {
+		try (WatchService watcher = dir.getFileSystem().newWatchService()) {
+			Files.createDirectories(dir);
+
+			// Watch before looking at the directory, so nothing that changes in between is missed
+			dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+					StandardWatchEventKinds.ENTRY_MODIFY);
+			readIndex();
+			rescan();
+			loaded = true;
+
+			while (true) {
+				WatchKey key = watcher.take();
+
+				boolean changed = false;
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						rescan();
+						continue;
+					}
+
+					String name = getName(((Path) event.context()).getFileName().toString());
+					if (name != null) changed |= refresh(name);
+				}
+				if (changed) {
+					synchronized (this) {
+						writeIndex();
+					}
+				}
+
+				if (!key.reset()) break; // The directory is gone
+			}
+		} catch (IOException ex) {
+			System.err.println(ex);
+		} catch (InterruptedException ex) {
+			// Stop watching
+		} finally {
+			loaded = true;
+		}
+	}
+
+	/**
+	 * Gets the name of a save from its file name
+	 *
+	 * @param fileName the name of a file in the directory
+	 * @return the name of the save, null if the file is not a save
+	 */
+	private static String getName(String fileName) {
+		String name;
+		if (fileName.endsWith(SAVE_EXTENSION)) {
+			name = fileName.substring(0, fileName.length() - SAVE_EXTENSION.length());
+		} else if (fileName.endsWith(TEXT_SAVE_EXTENSION)) {
+			name = fileName.substring(0, fileName.length() - TEXT_SAVE_EXTENSION.length());
+		} else {
+			return null;
+		}
+		return (isValidName(name)) ? name : null;
+	}
+
+	/**
+	 * Brings the whole index up to date with the directory
+	 *
+	 * @throws IOException if the directory can't be listed
+	 */
+	private void rescan() throws IOException {
+		HashSet<String> names = new HashSet<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+			for (Path file : files) {
+				String name = getName(file.getFileName().toString());
+				if (name != null) names.add(name);
+			}
+		}
+
+		boolean changed = false;
+		for (String name : names) {
+			changed |= refresh(name);
+		}
+
+		synchronized (this) {
+			changed |= saves.keySet().retainAll(names);
+			if (changed) writeIndex();
+		}
+	}
+
+	/**
+	 * Brings one save in the index up to date with its file, the file is only read if it changed since it was indexed
+	 *
+	 * @param name the name of the save
+	 * @return true if the index changed
+	 */
+	private boolean refresh(String name) {
+		// A binary save is loaded before a text save with the same name, so that is the one to show
+		Path path = getSavePath(name);
+		boolean text = false;
+		if (!Files.exists(path)) {
+			path = getTextSavePath(name);
+			text = true;
+		}
+
+		SaveInfo info = null;
+		try {
+			SaveInfo old;
+			synchronized (this) {
+				old = saves.get(name);
+			}
+			if (old != null && Files.getLastModifiedTime(path).toMillis() == old.getLastModified()) return false;
+
+			info = (text) ? SaveFile.readTextInfo(path) : SaveFile.readInfo(path);
+		} catch (NoSuchFileException ex) {
+			// Removed
+		} catch (IOException | InvalidSaveException ex) {
+			// Not a save that can be loaded, or it is still being written, leave it out
+		}
+
+		synchronized (this) {
+			if (info == null) return saves.remove(name) != null;
+			saves.put(name, info);
+			return true;
+		}
+	}
+
+	private synchronized void readIndex() {
+		Path index = dir.resolve(INDEX_FILE);
+		if (!Files.exists(index)) return;
+
+		try (BufferedReader reader = Files.newBufferedReader(index)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith("#")) continue;
+
+				// name, rows, cols, bombs, revealed, last modified
+				String[] fields = line.split("\t");
+				if (fields.length != 6 || !isValidName(fields[0])) continue;
+				try {
+					saves.put(fields[0], new SaveInfo(fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+							Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), Long.parseLong(fields[5])));
+				} catch (NumberFormatException ex) {
+					// Skip the line, rescan will read the save again
+				}
+			}
+		} catch (IOException ex) {
+			System.err.println(ex);
+		}
+	}
+
+	/**
+	 * Writes the index to a temporary file and moves it over the old one, the caller has to hold the lock
+	 */
+	private void writeIndex() {
+		Path index = dir.resolve(INDEX_FILE);
+		Path temp = null;
+
+		try {
+			// Another copy of the game could be writing the index at the same time, so each write gets its own temporary file
+			temp = Files.createTempFile(dir, INDEX_FILE, ".tmp");
+			try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+				writer.write(INDEX_HEADER);
+				writer.newLine();
+				for (SaveInfo info : saves.values()) {
+					writer.write(info.getName() + "\t" + info.getNumRows() + "\t" + info.getNumCols() + "\t" + info.getNumBombs()
+							+ "\t" + info.getNumRevealed() + "\t" + info.getLastModified());
+					writer.newLine();
+				}
+			}
+
+			try {
+				Files.move(temp, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException ex) {
+			// The index is only there to make starting faster, the next rescan fixes it
+			System.err.println(ex);
+			try {
+				if (temp != null) Files.deleteIfExists(temp);
+			} catch (IOException ignored) {
+			}
+		}
+	}
+}
@@ -0,0 +1,749 @@
+package engine;
+
+import exceptions.BombException;
+import exceptions.InvalidSaveException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads and writes saved games
+ * <p>
+ * The binary format is:
+ * <pre>
+ * int  MAGIC
+ * byte VERSION
+ * int  rows
+ * int  cols
+ * int  bombs
+ * int  CRC32C of the header so far
+ * byte[(rows * cols + 1) / 2] cells, 4 bits per cell, left to right, top to bottom, the first cell of each byte is in the high bits
+ * int  CRC32C of everything before it
+ * </pre>
+ * Each cell is BOMB_BIT if it is a bomb, or'd with HIDDEN, REVEALED or FLAGGED.
+ * The numbers are not saved, they are calculated from the bombs when the game is loaded,
+ * so a save that passes the checksum can't have numbers that don't match its bombs.
+ * The header has its own checksum, so a damaged size is caught before the board is allocated
+ * <p>
+ * A game that has a seed is saved as SEEDED_VERSION instead, which only needs the seed and the moves,
+ * so the save stays small no matter how big the board is:
+ * <pre>
+ * int  MAGIC
+ * byte SEEDED_VERSION
+ * int  rows
+ * int  cols
+ * int  bombs
+ * long seed
+ * int  number of moves
+ * int  CRC32C of the header so far
+ * the moves, each is a byte with the type from MoveList, then an int row and an int col
+ * int  CRC32C of everything before it
+ * </pre>
+ * Loading it makes the board from the seed again and makes every move on it.
+ * Both formats end with a checksum of everything before it, so readChecksum works on either
+ * <p>
+ * Files are read and written a piece at a time through a direct buffer that each thread keeps, the channel copies straight
+ * between it and the file, so even a board with a hundred million cells only needs a fixed amount of memory on top of the Minefield itself.
+ * The file isn't memory mapped, a mapping keeps the file open until the garbage collector gets to it,
+ * and on Windows a file that is still mapped can't be replaced, which writeAtomically needs to do.
+ * Streams, and saves made from a seed, go through a small heap buffer instead
+ * <p>
+ * Reading and writing files can be cancelled by interrupting the thread doing it, an InterruptedIOException is thrown.
+ * writeAtomically writes to a temporary file and moves it over the save, so the old save is kept if writing fails part way
+ * <p>
+ * The old text format, one line per cell, can still be read with readText
+ */
+public final class SaveFile {
+	public static final int MAGIC = 0x4D535750; // "MSWP"
+	public static final int VERSION = 1;
+	public static final int SEEDED_VERSION = 2;
+
+	private static final int PREFIX_SIZE = 5; // MAGIC, VERSION, what comes after depends on the version
+	private static final int HEADER_SIZE = 21; // MAGIC, VERSION, rows, cols, bombs, checksum
+	private static final int SEEDED_HEADER_SIZE = 33; // MAGIC, SEEDED_VERSION, rows, cols, bombs, seed, moves, checksum
+	private static final int MOVE_SIZE = 9; // type, row, col
+	private static final int TRAILER_SIZE = 4;
+
+	private static final int BOMB_BIT = 0b1000;
+	private static final int STATE_MASK = 0b0011;
+	private static final int HIDDEN = 0;
+	private static final int REVEALED = 1;
+	private static final int FLAGGED = 2;
+
+	private static final int BUFFER_SIZE = 1 << 16; // For streams
+	private static final int DIRECT_BUFFER_SIZE = 1 << 20; // How much of a file is read or written at once, progress is reported once per buffer
+
+	// A direct buffer is slow to allocate and is only freed by the garbage collector, so every thread that reads or writes files keeps one
+	private static final ThreadLocal<ByteBuffer> DIRECT_BUFFER = new ThreadLocal<ByteBuffer>() {
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+		}
+	};
+
+	private SaveFile() {
+	}
+
+	/**
+	 * Writes a game in the binary format to a temporary file next to the save, then moves it over the save,
+	 * if anything goes wrong, the old save is left as it was
+	 *
+	 * @param minefield the game to write, it must not be changed until this returns
+	 * @param path      the save file
+	 * @param listener  gets told how many bytes have been written, null if nothing needs to know
+	 * @return the checksum at the end of the file
+	 * @throws IOException if writing fails, or an InterruptedIOException if the thread was interrupted
+	 */
+	public static int writeAtomically(Minefield minefield, Path path, ProgressListener listener) throws IOException {
+		Path dir = path.toAbsolutePath().getParent();
+		Path temp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+		try {
+			int checksum = write(minefield, temp, listener);
+			try {
+				Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return checksum;
+		} finally {
+			Files.deleteIfExists(temp); // Only still there if something went wrong
+		}
+	}
+
+	/**
+	 * Writes a game in the binary format to a file, replacing it if it exists
+	 *
+	 * @param minefield the game to write
+	 * @param path      the file to write
+	 * @throws IOException if writing fails
+	 */
+	public static void write(Minefield minefield, Path path) throws IOException {
+		write(minefield, path, null);
+	}
+
+	/**
+	 * Writes a game in the binary format to a file, replacing it if it exists, everything is on the disk once this returns.
+	 * A game that has a seed is written as the seed and the moves
+	 *
+	 * @param minefield the game to write, it must not be changed until this returns
+	 * @param path      the file to write
+	 * @param listener  gets told how many bytes have been written, null if nothing needs to know
+	 * @return the checksum at the end of the file
+	 * @throws IOException if writing fails, or an InterruptedIOException if the thread was interrupted
+	 */
+	public static int write(Minefield minefield, Path path, ProgressListener listener) throws IOException {
+		return write(minefield, path, listener, true);
+	}
+
+	/**
+	 * Writes a game in the binary format to a file, replacing it if it exists.
+	 * A game that has a seed is written as the seed and the moves
+	 *
+	 * @param minefield the game to write, it must not be changed until this returns
+	 * @param path      the file to write
+	 * @param listener  gets told how many bytes have been written, null if nothing needs to know
+	 * @param force     true to wait until everything is on the disk, false to leave it to the operating system,
+	 *                  which is only safe if losing the file in a crash of the computer is fine
+	 * @return the checksum at the end of the file
+	 * @throws IOException if writing fails, or an InterruptedIOException if the thread was interrupted
+	 */
+	static int write(Minefield minefield, Path path, ProgressListener listener, boolean force) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			if (minefield.hasSeed()) {
+				int checksum = writeSeeded(minefield, channel, listener);
+				if (force) channel.force(true);
+				return checksum;
+			}
+
+			CRC32C crc = new CRC32C();
+			ByteBuffer header = createHeader(minefield);
+			crc.update(header.duplicate());
+			writeFully(channel, header, 0);
+
+			long end = HEADER_SIZE + getBodySize(minefield);
+			long position = HEADER_SIZE;
+			int cell = 0;
+			ByteBuffer buffer = DIRECT_BUFFER.get();
+			while (position < end) {
+				checkInterrupted();
+				buffer.clear().limit((int) Math.min(DIRECT_BUFFER_SIZE, end - position));
+				cell = packCells(minefield, cell, buffer);
+				buffer.flip();
+				crc.update(buffer);
+				writeFully(channel, buffer.rewind(), position);
+				position += buffer.limit();
+				if (listener != null) listener.progress(position, end + TRAILER_SIZE);
+			}
+
+			int checksum = (int) crc.getValue();
+			ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE).putInt(checksum).flip();
+			writeFully(channel, trailer, end);
+			if (force) channel.force(true);
+			if (listener != null) listener.progress(end + TRAILER_SIZE, end + TRAILER_SIZE);
+			return checksum;
+		}
+	}
+
+	/**
+	 * Writes a game in the binary format, the stream is flushed but not closed.
+	 * A game that has a seed is written as the seed and the moves
+	 *
+	 * @param minefield the game to write
+	 * @param out       where to write it
+	 * @throws IOException if writing fails
+	 */
+	public static void write(Minefield minefield, OutputStream out) throws IOException {
+		if (minefield.hasSeed()) {
+			writeSeeded(minefield, Channels.newChannel(out), null);
+			out.flush();
+			return;
+		}
+
+		CRC32C crc = new CRC32C();
+		ByteBuffer header = createHeader(minefield);
+		crc.update(header.array(), 0, header.limit());
+		out.write(header.array(), 0, header.limit());
+
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		int numCells = minefield.getNumRows() * minefield.getNumCols();
+		int cell = 0;
+		while (cell < numCells) {
+			buffer.clear();
+			cell = packCells(minefield, cell, buffer);
+			crc.update(buffer.array(), 0, buffer.position());
+			out.write(buffer.array(), 0, buffer.position());
+		}
+
+		buffer.clear();
+		buffer.putInt((int) crc.getValue());
+		out.write(buffer.array(), 0, TRAILER_SIZE);
+		out.flush();
+	}
+
+	/**
+	 * Reads a game in the binary format from a file
+	 *
+	 * @param path the file to read
+	 * @return the game
+	 * @throws IOException          if reading fails
+	 * @throws InvalidSaveException if it is not a save, it is from a newer version, or it is damaged
+	 */
+	public static Minefield read(Path path) throws IOException, InvalidSaveException {
+		return read(path, null);
+	}
+
+	/**
+	 * Reads a game in the binary format from a file
+	 *
+	 * @param path     the file to read
+	 * @param listener gets told how many bytes have been read, null if nothing needs to know
+	 * @return the game
+	 * @throws IOException          if reading fails, or an InterruptedIOException if the thread was interrupted
+	 * @throws InvalidSaveException if it is not a save, it is from a newer version, or it is damaged
+	 */
+	public static Minefield read(Path path, ProgressListener listener) throws IOException, InvalidSaveException {
+		CRC32C crc = new CRC32C();
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			readFully(channel, header.limit(PREFIX_SIZE), 0);
+			if (isSeeded(header)) {
+				channel.position(PREFIX_SIZE);
+				DataInputStream data = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+				return readSeeded(data, header.array(), listener, channel.size());
+			}
+
+			readFully(channel, header.limit(HEADER_SIZE), PREFIX_SIZE);
+			Minefield minefield = readHeader(header);
+			crc.update(header.rewind());
+
+			long end = HEADER_SIZE + getBodySize(minefield);
+			if (channel.size() != end + TRAILER_SIZE) throw new InvalidSaveException("The save file is the wrong size");
+
+			long position = HEADER_SIZE;
+			int cell = 0;
+			ByteBuffer buffer = DIRECT_BUFFER.get();
+			while (position < end) {
+				checkInterrupted();
+				buffer.clear().limit((int) Math.min(DIRECT_BUFFER_SIZE, end - position));
+				readFully(channel, buffer, position);
+				buffer.flip();
+				crc.update(buffer);
+				cell = unpackCells(minefield, cell, buffer.rewind());
+				position += buffer.limit();
+				if (listener != null) listener.progress(position, end + TRAILER_SIZE);
+			}
+
+			ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+			readFully(channel, trailer, end);
+			finish(minefield, crc, trailer.getInt(0));
+			return minefield;
+		}
+	}
+
+	/**
+	 * Reads a game in the binary format, the stream is not closed, nothing after the save is read from it
+	 *
+	 * @param in where to read it from
+	 * @return the game
+	 * @throws IOException          if reading fails
+	 * @throws InvalidSaveException if it is not a save, it is from a newer version, or it is damaged
+	 */
+	public static Minefield read(InputStream in) throws IOException, InvalidSaveException {
+		CRC32C crc = new CRC32C();
+		DataInputStream data = new DataInputStream(in);
+
+		try {
+			byte[] header = new byte[HEADER_SIZE];
+			data.readFully(header, 0, PREFIX_SIZE);
+			if (isSeeded(ByteBuffer.wrap(header))) return readSeeded(data, header, null, -1);
+
+			data.readFully(header, PREFIX_SIZE, HEADER_SIZE - PREFIX_SIZE);
+			Minefield minefield = readHeader(ByteBuffer.wrap(header));
+			crc.update(header);
+
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			long bytesLeft = getBodySize(minefield);
+			int cell = 0;
+			while (bytesLeft > 0) {
+				int length = (int) Math.min(bytesLeft, BUFFER_SIZE);
+				data.readFully(buffer.array(), 0, length);
+				crc.update(buffer.array(), 0, length);
+				buffer.clear().limit(length);
+				cell = unpackCells(minefield, cell, buffer);
+				bytesLeft -= length;
+			}
+
+			finish(minefield, crc, data.readInt());
+			return minefield;
+		} catch (EOFException ex) {
+			throw new InvalidSaveException("The save file is cut off");
+		}
+	}
+
+	/**
+	 * Writes a game as its seed and its moves, progress is reported once per buffer
+	 *
+	 * @param minefield the game to write, it has to have a seed
+	 * @param channel   where to write it, from its current position
+	 * @param listener  gets told how many bytes have been written, null if nothing needs to know
+	 * @return the checksum at the end
+	 * @throws IOException if writing fails, or an InterruptedIOException if the thread was interrupted
+	 */
+	private static int writeSeeded(Minefield minefield, WritableByteChannel channel, ProgressListener listener) throws IOException {
+		MoveList moves = minefield.getMoves();
+		long total = SEEDED_HEADER_SIZE + (long) moves.size() * MOVE_SIZE + TRAILER_SIZE;
+
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		buffer.putInt(MAGIC).put((byte) SEEDED_VERSION);
+		buffer.putInt(minefield.getNumRows()).putInt(minefield.getNumCols()).putInt(minefield.getNumBombs());
+		buffer.putLong(minefield.getSeed()).putInt(moves.size());
+
+		CRC32C headerCrc = new CRC32C();
+		headerCrc.update(buffer.array(), 0, buffer.position());
+		buffer.putInt((int) headerCrc.getValue());
+
+		CRC32C crc = new CRC32C(); // Everything in the buffer is added to it as it is written out, the header too
+
+		long written = 0;
+		for (int i = 0; i < moves.size(); ++i) {
+			if (buffer.remaining() < MOVE_SIZE) {
+				checkInterrupted();
+				written += flush(channel, buffer, crc);
+				if (listener != null) listener.progress(written, total);
+			}
+			buffer.put(moves.getType(i)).putInt(moves.getRow(i)).putInt(moves.getCol(i));
+		}
+
+		if (buffer.remaining() < TRAILER_SIZE) flush(channel, buffer, crc);
+		crc.update(buffer.array(), 0, buffer.position());
+		int checksum = (int) crc.getValue();
+		buffer.putInt(checksum).flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		if (listener != null) listener.progress(total, total);
+		return checksum;
+	}
+
+	/**
+	 * Writes out everything in the buffer, and adds it to the checksum, the buffer is cleared afterwards
+	 *
+	 * @return the number of bytes written
+	 */
+	private static int flush(WritableByteChannel channel, ByteBuffer buffer, CRC32C crc) throws IOException {
+		int length = buffer.position();
+		crc.update(buffer.array(), 0, length);
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+		return length;
+	}
+
+	/**
+	 * Reads a game saved as its seed and its moves, the board is made from the seed and then every move is made again
+	 *
+	 * @param data     the save, just after the first PREFIX_SIZE bytes
+	 * @param prefix   the first PREFIX_SIZE bytes, which were already read
+	 * @param listener gets told how many bytes have been read, null if nothing needs to know
+	 * @param size     the size of the file, -1 if it isn't known
+	 * @return the game
+	 * @throws IOException          if reading fails, or an InterruptedIOException if the thread was interrupted
+	 * @throws InvalidSaveException if the save is damaged, or one of the moves can't be made
+	 */
+	private static Minefield readSeeded(DataInputStream data, byte[] prefix, ProgressListener listener, long size)
+			throws IOException, InvalidSaveException {
+		try {
+			byte[] header = Arrays.copyOf(prefix, SEEDED_HEADER_SIZE);
+			data.readFully(header, PREFIX_SIZE, SEEDED_HEADER_SIZE - PREFIX_SIZE);
+			ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+
+			CRC32C crc = new CRC32C();
+			crc.update(header, 0, SEEDED_HEADER_SIZE - 4);
+			if ((int) crc.getValue() != headerBuffer.getInt(SEEDED_HEADER_SIZE - 4)) throw new InvalidSaveException("The save file is damaged");
+			crc.update(header, SEEDED_HEADER_SIZE - 4, 4);
+
+			int rows = headerBuffer.getInt(5);
+			int cols = headerBuffer.getInt(9);
+			int bombs = headerBuffer.getInt(13);
+			int numMoves = headerBuffer.getInt(25);
+			if (!isValidSize(rows, cols, bombs) || numMoves < 0) throw new InvalidSaveException("Invalid dimensions");
+
+			long total = SEEDED_HEADER_SIZE + (long) numMoves * MOVE_SIZE + TRAILER_SIZE;
+			if (size != -1 && size != total) throw new InvalidSaveException("The save file is the wrong size");
+
+			Minefield minefield;
+			try {
+				minefield = new Minefield(rows, cols, bombs, headerBuffer.getLong(17));
+			} catch (IllegalArgumentException ex) {
+				throw new InvalidSaveException("Invalid dimensions");
+			}
+
+			byte[] move = new byte[MOVE_SIZE];
+			ByteBuffer moveBuffer = ByteBuffer.wrap(move);
+			for (int i = 0; i < numMoves; ++i) {
+				if (i % (BUFFER_SIZE / MOVE_SIZE) == 0) {
+					checkInterrupted();
+					if (listener != null) listener.progress(SEEDED_HEADER_SIZE + (long) i * MOVE_SIZE, total);
+				}
+
+				data.readFully(move);
+				crc.update(move);
+				try {
+					if (!MoveList.replay(minefield, move[0], moveBuffer.getInt(1), moveBuffer.getInt(5))) {
+						throw new InvalidSaveException("Invalid move " + (i + 1));
+					}
+				} catch (BombException ex) {
+					throw new InvalidSaveException("Move " + (i + 1) + " reveals a bomb");
+				}
+			}
+
+			if ((int) crc.getValue() != data.readInt()) throw new InvalidSaveException("The save file is damaged");
+			if (listener != null) listener.progress(total, total);
+			return minefield;
+		} catch (EOFException ex) {
+			throw new InvalidSaveException("The save file is cut off");
+		}
+	}
+
+	private static boolean isSeeded(ByteBuffer prefix) {
+		return prefix.getInt(0) == MAGIC && (prefix.get(4) & 0xFF) == SEEDED_VERSION;
+	}
+
+	private static ByteBuffer createHeader(Minefield minefield) {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).put((byte) VERSION);
+		header.putInt(minefield.getNumRows()).putInt(minefield.getNumCols()).putInt(minefield.getNumBombs());
+
+		CRC32C crc = new CRC32C();
+		crc.update(header.array(), 0, header.position());
+		header.putInt((int) crc.getValue());
+		return header.flip();
+	}
+
+	/**
+	 * Reads the checksum at the end of a binary save, without checking it, two saves with the same checksum are almost certainly the same
+	 *
+	 * @param path the save file
+	 * @return the checksum
+	 * @throws IOException          if reading fails
+	 * @throws InvalidSaveException if the file is too short to be a save
+	 */
+	public static int readChecksum(Path path) throws IOException, InvalidSaveException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE + TRAILER_SIZE) throw new InvalidSaveException("The save file is cut off");
+
+			ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+			readFully(channel, trailer, channel.size() - TRAILER_SIZE);
+			return trailer.getInt(0);
+		}
+	}
+
+	/**
+	 * Reads what a binary save looks like, without loading the game, the cells are only looked at to count the revealed ones.
+	 * The checksum of the cells is not checked, and for a save made from a seed, how many cells are revealed isn't known
+	 *
+	 * @param path the save file, its name without the extension is used as the name of the save
+	 * @return what the save looks like
+	 * @throws IOException          if reading fails
+	 * @throws InvalidSaveException if it is not a save, it is from a newer version, or the header is damaged
+	 */
+	public static SaveInfo readInfo(Path path) throws IOException, InvalidSaveException {
+		long lastModified = Files.getLastModifiedTime(path).toMillis();
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(SEEDED_HEADER_SIZE);
+			readFully(channel, header.limit(PREFIX_SIZE), 0);
+			if (isSeeded(header)) {
+				// Knowing how many cells are revealed would mean making every move, so it is left unknown
+				readFully(channel, header.limit(SEEDED_HEADER_SIZE), PREFIX_SIZE);
+				CRC32C crc = new CRC32C();
+				crc.update(header.array(), 0, SEEDED_HEADER_SIZE - 4);
+				if ((int) crc.getValue() != header.getInt(SEEDED_HEADER_SIZE - 4)) throw new InvalidSaveException("The save file is damaged");
+				return new SaveInfo(getName(path), header.getInt(5), header.getInt(9), header.getInt(13), -1, lastModified);
+			}
+
+			readFully(channel, header.limit(HEADER_SIZE), PREFIX_SIZE);
+			checkHeader(header);
+			int rows = header.getInt(5);
+			int cols = header.getInt(9);
+
+			long end = HEADER_SIZE + ((long) rows * cols + 1) / 2;
+			if (channel.size() != end + TRAILER_SIZE) throw new InvalidSaveException("The save file is the wrong size");
+
+			// An odd number of cells leaves the low half of the last byte empty, which counts as hidden
+			int revealed = 0;
+			long position = HEADER_SIZE;
+			ByteBuffer buffer = DIRECT_BUFFER.get();
+			while (position < end) {
+				buffer.clear().limit((int) Math.min(DIRECT_BUFFER_SIZE, end - position));
+				readFully(channel, buffer, position);
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					int packed = buffer.get();
+					if (((packed >> 4) & STATE_MASK) == REVEALED) ++revealed;
+					if ((packed & STATE_MASK) == REVEALED) ++revealed;
+				}
+				position += buffer.limit();
+			}
+
+			return new SaveInfo(getName(path), rows, cols, header.getInt(13), revealed, lastModified);
+		}
+	}
+
+	/**
+	 * Reads what a save in the old text format looks like, only the first three lines are read,
+	 * so how many cells are revealed isn't known
+	 *
+	 * @param path the save file, its name without the extension is used as the name of the save
+	 * @return what the save looks like
+	 * @throws IOException          if reading fails
+	 * @throws InvalidSaveException if the first three lines are not valid
+	 */
+	public static SaveInfo readTextInfo(Path path) throws IOException, InvalidSaveException {
+		long lastModified = Files.getLastModifiedTime(path).toMillis();
+
+		try (BufferedReader reader = Files.newBufferedReader(path)) {
+			int[] header = new int[3];
+			for (int i = 0; i < header.length; ++i) {
+				String line = reader.readLine();
+				if (line == null) throw new InvalidSaveException("The save file is cut off");
+				try {
+					header[i] = Integer.parseInt(line.trim());
+				} catch (NumberFormatException ex) {
+					throw new InvalidSaveException("Expected a number", i + 1, 1);
+				}
+			}
+
+			return new SaveInfo(getName(path), header[0], header[1], header[2], -1, lastModified);
+		}
+	}
+
+	private static String getName(Path path) {
+		String fileName = path.getFileName().toString();
+		int dot = fileName.lastIndexOf('.');
+		return (dot == -1) ? fileName : fileName.substring(0, dot);
+	}
+
+	/**
+	 * Checks the header and makes a Minefield of the right size, with no bombs yet
+	 *
+	 * @param header the header, from position 0
+	 * @return the empty minefield
+	 * @throws InvalidSaveException if the header is not valid
+	 */
+	private static Minefield readHeader(ByteBuffer header) throws InvalidSaveException {
+		checkHeader(header);
+
+		try {
+			return new Minefield(header.getInt(5), header.getInt(9), header.getInt(13));
+		} catch (IllegalArgumentException ex) {
+			throw new InvalidSaveException("Invalid dimensions");
+		}
+	}
+
+	private static void checkHeader(ByteBuffer header) throws InvalidSaveException {
+		if (header.getInt(0) != MAGIC) throw new InvalidSaveException("Not a save file");
+		int version = header.get(4) & 0xFF;
+		if (version != VERSION) throw new InvalidSaveException("Unsupported save version " + version);
+
+		CRC32C crc = new CRC32C();
+		crc.update(header.array(), 0, HEADER_SIZE - 4);
+		if ((int) crc.getValue() != header.getInt(HEADER_SIZE - 4)) throw new InvalidSaveException("The save file is damaged");
+
+		int rows = header.getInt(5);
+		int cols = header.getInt(9);
+		int bombs = header.getInt(13);
+		if (!isValidSize(rows, cols, bombs)) throw new InvalidSaveException("Invalid dimensions");
+	}
+
+	/**
+	 * Checks the dimensions before anything is made from them, a damaged file shouldn't get to ask for more memory than any game needs
+	 *
+	 * @return true if a game can be this big, and have this many bombs
+	 */
+	private static boolean isValidSize(int rows, int cols, int bombs) {
+		return rows > 0 && cols > 0 && rows <= Minefield.MAX_ROWS && cols <= Minefield.MAX_COLS && bombs >= 0 && bombs <= rows * cols;
+	}
+
+	private static long getBodySize(Minefield minefield) {
+		return ((long) minefield.getNumRows() * minefield.getNumCols() + 1) / 2;
+	}
+
+	/**
+	 * Packs cells into a buffer, two to a byte, until the buffer is full or there are no cells left
+	 *
+	 * @param minefield the game being written
+	 * @param cell      the first cell to pack, left to right, top to bottom, it is always even
+	 * @param out       where to put the packed cells
+	 * @return the next cell to pack
+	 */
+	private static int packCells(Minefield minefield, int cell, ByteBuffer out) {
+		int cols = minefield.getNumCols();
+		int numCells = minefield.getNumRows() * cols;
+		int row = cell / cols;
+		int col = cell % cols;
+
+		while (cell < numCells && out.hasRemaining()) {
+			int packed = getCellBits(minefield, row, col) << 4;
+			if (++col == cols) {
+				col = 0;
+				++row;
+			}
+
+			// An odd number of cells leaves the low half of the last byte empty
+			if (++cell < numCells) {
+				packed |= getCellBits(minefield, row, col);
+				if (++col == cols) {
+					col = 0;
+					++row;
+				}
+				++cell;
+			}
+			out.put((byte) packed);
+		}
+		return cell;
+	}
+
+	private static int getCellBits(Minefield minefield, int row, int col) {
+		int bits = (minefield.isBomb(row, col)) ? BOMB_BIT : 0;
+		if (minefield.isRevealed(row, col)) {
+			bits |= REVEALED;
+		} else if (minefield.isFlagged(row, col)) {
+			bits |= FLAGGED;
+		}
+		return bits;
+	}
+
+	/**
+	 * Unpacks cells from a buffer into the minefield, until the buffer is empty or there are no cells left
+	 *
+	 * @param minefield the game being read
+	 * @param cell      the first cell to unpack, left to right, top to bottom, it is always even
+	 * @param in        the packed cells
+	 * @return the next cell to unpack
+	 * @throws InvalidSaveException if a cell is not valid
+	 */
+	private static int unpackCells(Minefield minefield, int cell, ByteBuffer in) throws InvalidSaveException {
+		int cols = minefield.getNumCols();
+		int numCells = minefield.getNumRows() * cols;
+		int row = cell / cols;
+		int col = cell % cols;
+
+		while (cell < numCells && in.hasRemaining()) {
+			int packed = in.get();
+			setCellBits(minefield, row, col, (packed >> 4) & 0xF);
+			if (++col == cols) {
+				col = 0;
+				++row;
+			}
+
+			if (++cell < numCells) {
+				setCellBits(minefield, row, col, packed & 0xF);
+				if (++col == cols) {
+					col = 0;
+					++row;
+				}
+				++cell;
+			}
+		}
+		return cell;
+	}
+
+	private static void setCellBits(Minefield minefield, int row, int col, int bits) throws InvalidSaveException {
+		int state = bits & STATE_MASK;
+		if ((bits & ~(BOMB_BIT | STATE_MASK)) != 0 || state == (REVEALED | FLAGGED)) {
+			throw new InvalidSaveException("Invalid cell at row " + row + ", column " + col);
+		}
+
+		if ((bits & BOMB_BIT) != 0) {
+			if (state == REVEALED) throw new InvalidSaveException("Revealed bomb at row " + row + ", column " + col);
+			minefield.setBomb(row, col);
+		}
+		if (state != HIDDEN) minefield.setCell(row, col, state == REVEALED, state == FLAGGED);
+	}
+
+	private static void finish(Minefield minefield, CRC32C crc, int checksum) throws InvalidSaveException {
+		if ((int) crc.getValue() != checksum) throw new InvalidSaveException("The save file is damaged");
+		if (minefield.calculateNumbers() != minefield.getNumBombs()) throw new InvalidSaveException("Wrong number of bombs");
+	}
+
+	private static void checkInterrupted() throws InterruptedIOException {
+		if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Cancelled");
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException, InvalidSaveException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read == -1) throw new InvalidSaveException("The save file is cut off");
+			position += read;
+		}
+	}
+
+	/**
+	 * Reads a game in the old text format, one line for each of rows, cols and bombs,
+	 * then one line per cell with its number, followed by 'r' if it is revealed or 'f' if it is flagged
+	 *
+	 * @param reader where to read it from, it is not closed
+	 * @return the game
+	 * @throws IOException          if reading fails
+	 * @throws InvalidSaveException if the save is not valid, with the line and column of the first problem
+	 */
+	public static Minefield readText(Reader reader) throws IOException, InvalidSaveException {
+		return new TextSaveReader(reader).read();
+	}
+}
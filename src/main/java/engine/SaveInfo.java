@@ -0,0 +1,97 @@
+package engine;
+
+/**
+ * What a save looks like, without having to load it
+ */
+public final class SaveInfo {
+	private final String name;
+	private final int numRows;
+	private final int numCols;
+	private final int numBombs;
+	private final int numRevealed; // -1 if it isn't known
+	private final long lastModified; // Milliseconds since the epoch
+
+	/**
+	 * Constructor
+	 *
+	 * @param name         the name of the save
+	 * @param numRows      the number of rows
+	 * @param numCols      the number of columns
+	 * @param numBombs     the number of bombs
+	 * @param numRevealed  the number of revealed cells, -1 if it isn't known
+	 * @param lastModified when the save was last written, in milliseconds since the epoch
+	 */
+	public SaveInfo(String name, int numRows, int numCols, int numBombs, int numRevealed, long lastModified) {
+		this.name = name;
+		this.numRows = numRows;
+		this.numCols = numCols;
+		this.numBombs = numBombs;
+		this.numRevealed = numRevealed;
+		this.lastModified = lastModified;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.name
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.numRows
+	 */
+	public int getNumRows() {
+		return this.numRows;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.numCols
+	 */
+	public int getNumCols() {
+		return this.numCols;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.numBombs
+	 */
+	public int getNumBombs() {
+		return this.numBombs;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.numRevealed, -1 if it isn't known
+	 */
+	public int getNumRevealed() {
+		return this.numRevealed;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return this.lastModified
+	 */
+	public long getLastModified() {
+		return this.lastModified;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the percentage of safe cells that are revealed, -1 if it isn't known
+	 */
+	public int getProgress() {
+		long numSafe = (long) numRows * numCols - numBombs;
+		if (numRevealed < 0 || numSafe <= 0) return -1;
+		return (int) (numRevealed * 100L / numSafe);
+	}
+}
@@ -0,0 +1,263 @@
+package engine;
+
+import exceptions.BombException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Plays a lot of games with a bot, without any of the GUI, on every core at once
+ * <p>
+ * The games are handed out in chunks of GAMES_PER_CHUNK, every chunk gets its own random stream, taken from the seed in order,
+ * so the same seed plays the same games no matter how many threads there are or which thread gets which chunk.
+ * Each thread has its own bot and its own counts, they are only added up at the end, so the threads never wait on each other
+ */
+public final class Simulation {
+	private static final int GAMES_PER_CHUNK = 1024;
+
+	private final int rows;
+	private final int cols;
+	private final int bombs;
+	private final long numGames;
+	private final SplittableRandom seeds; // Only used while holding the lock on this
+	private long nextChunk = 0;
+
+	private Simulation(int rows, int cols, int bombs, long numGames, long seed) {
+		this.rows = rows;
+		this.cols = cols;
+		this.bombs = bombs;
+		this.numGames = numGames;
+		this.seeds = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Plays the games, and waits for them to finish
+	 *
+	 * @param rows       the number of rows
+	 * @param cols       the number of columns
+	 * @param bombs      the number of bombs
+	 * @param numGames   how many games to play
+	 * @param seed       where the boards, and any randomness of the bots, come from
+	 * @param numThreads how many games are played at once
+	 * @param bots       makes the bot for each thread
+	 * @return what happened
+	 * @throws InterruptedException if the calling thread is interrupted, the games are stopped
+	 */
+	public static Result run(int rows, int cols, int bombs, long numGames, long seed, int numThreads, Supplier<Bot> bots) throws InterruptedException {
+		if (!(rows > 0 && cols > 0 && bombs >= 0 && bombs < rows * cols && numGames >= 0 && numThreads > 0)) {
+			throw new IllegalArgumentException();
+		}
+
+		final Simulation SIMULATION = new Simulation(rows, cols, bombs, numGames, seed);
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			List<Callable<Result>> workers = new ArrayList<>();
+			for (int t = 0; t < numThreads; ++t) {
+				workers.add(new Callable<Result>() {
+					@Override
+					public Result call() throws InterruptedException {
+						return SIMULATION.work(bots.get());
+					}
+				});
+			}
+
+			long start = System.nanoTime();
+			Result total = new Result();
+			for (Future<Result> future : executor.invokeAll(workers)) {
+				total.add(future.get());
+			}
+			total.nanos = System.nanoTime() - start;
+			return total;
+		} catch (ExecutionException ex) {
+			throw new RuntimeException(ex.getCause()); // A bot broke the rules
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Plays chunks until there are none left
+	 */
+	private Result work(Bot bot) throws InterruptedException {
+		Result result = new Result();
+		long[] chunk = new long[2]; // The first game of the chunk, and the seed of its random stream
+
+		while (takeChunk(chunk)) {
+			SplittableRandom random = new SplittableRandom(chunk[1]);
+			long end = Math.min(numGames, chunk[0] + GAMES_PER_CHUNK);
+			for (long game = chunk[0]; game < end; ++game) {
+				long start = System.nanoTime();
+				int moves = play(bot, random);
+				result.addGame(moves > 0, Math.abs(moves), System.nanoTime() - start);
+			}
+			if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+		}
+		return result;
+	}
+
+	private synchronized boolean takeChunk(long[] chunk) {
+		long first = nextChunk * GAMES_PER_CHUNK;
+		if (first >= numGames) return false;
+
+		++nextChunk;
+		chunk[0] = first;
+		chunk[1] = seeds.nextLong();
+		return true;
+	}
+
+	/**
+	 * Plays one game
+	 *
+	 * @return the number of moves made, negative if the game was lost
+	 */
+	private int play(Bot bot, SplittableRandom random) {
+		Minefield minefield = new Minefield(rows, cols, bombs, random);
+		Grid grid = minefield.getGrid();
+		bot.newGame(minefield, random);
+
+		int moves = 0;
+		try {
+			while (!minefield.isWon()) {
+				int cell = bot.nextCell();
+				++moves;
+				if (!minefield.reveal(grid.row(cell), grid.col(cell))) {
+					throw new IllegalStateException("The bot picked a cell that can't be revealed");
+				}
+			}
+		} catch (BombException ex) {
+			return -moves;
+		}
+		return moves;
+	}
+
+	/**
+	 * What happened in the games, the time each game took is kept in a histogram,
+	 * so the percentiles are only accurate to about 3%, but millions of games take no more memory than one
+	 */
+	public static final class Result {
+		// Times under 64 ns get a bucket each, past that every power of 2 is split into 32 buckets
+		private static final int SUB_BUCKETS = 32;
+		private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+		private static final int NUM_BUCKETS = LINEAR_BUCKETS + (63 - 6) * SUB_BUCKETS;
+
+		private long numGames = 0;
+		private long numWins = 0;
+		private long numMoves = 0;
+		private long nanos = 0;
+		private final long[] latencies = new long[NUM_BUCKETS];
+		private long maxLatency = 0;
+
+		private Result() {
+		}
+
+		private void addGame(boolean won, int moves, long latency) {
+			++numGames;
+			if (won) ++numWins;
+			numMoves += moves;
+			++latencies[bucketOf(latency)];
+			maxLatency = Math.max(maxLatency, latency);
+		}
+
+		private void add(Result other) {
+			numGames += other.numGames;
+			numWins += other.numWins;
+			numMoves += other.numMoves;
+			for (int i = 0; i < NUM_BUCKETS; ++i) {
+				latencies[i] += other.latencies[i];
+			}
+			maxLatency = Math.max(maxLatency, other.maxLatency);
+		}
+
+		private static int bucketOf(long value) {
+			if (value < LINEAR_BUCKETS) return (int) value;
+
+			int exponent = 63 - Long.numberOfLeadingZeros(value); // At least 6
+			int mantissa = (int) (value >>> (exponent - 5)) & (SUB_BUCKETS - 1);
+			return LINEAR_BUCKETS + (exponent - 6) * SUB_BUCKETS + mantissa;
+		}
+
+		private static long lowestValueOf(int bucket) {
+			if (bucket < LINEAR_BUCKETS) return bucket;
+
+			int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 6;
+			int mantissa = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+			return (long) (SUB_BUCKETS + mantissa) << (exponent - 5);
+		}
+
+		/**
+		 * Self-explanatory
+		 *
+		 * @return this.numGames
+		 */
+		public long getNumGames() {
+			return this.numGames;
+		}
+
+		/**
+		 * Self-explanatory
+		 *
+		 * @return this.numWins
+		 */
+		public long getNumWins() {
+			return this.numWins;
+		}
+
+		/**
+		 * Self-explanatory
+		 *
+		 * @return the fraction of the games that were won, 0 if no games were played
+		 */
+		public double getWinRate() {
+			return (numGames > 0) ? (double) numWins / numGames : 0;
+		}
+
+		/**
+		 * Self-explanatory
+		 *
+		 * @return the average number of cells the bot picked in a game, including the one that lost
+		 */
+		public double getAverageMoves() {
+			return (numGames > 0) ? (double) numMoves / numGames : 0;
+		}
+
+		/**
+		 * Self-explanatory
+		 *
+		 * @return how long all the games took, in nanoseconds
+		 */
+		public long getNanos() {
+			return this.nanos;
+		}
+
+		/**
+		 * Self-explanatory
+		 *
+		 * @return the games played per second of wall time
+		 */
+		public double getGamesPerSecond() {
+			return numGames / Math.max(nanos / 1e9, 1e-9);
+		}
+
+		/**
+		 * Finds how long a game took at a percentile
+		 *
+		 * @param fraction the percentile, from 0 to 1, 0.99 is the 99th percentile
+		 * @return the time in nanoseconds that this fraction of the games took no more than, about, 0 if no games were played
+		 */
+		public long getLatencyPercentile(double fraction) {
+			if (numGames == 0) return 0;
+			if (fraction >= 1) return maxLatency;
+
+			long rank = (long) Math.ceil(fraction * numGames); // The rank-th fastest game
+			long seen = 0;
+			for (int i = 0; i < NUM_BUCKETS; ++i) {
+				seen += latencies[i];
+				if (seen >= Math.max(rank, 1)) return Math.min(lowestValueOf(i), maxLatency);
+			}
+			return maxLatency;
+		}
+	}
+}
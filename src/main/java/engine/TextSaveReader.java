@@ -0,0 +1,203 @@
+package engine;
+
+import exceptions.InvalidSaveException;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the old text save format in one pass, one character at a time
+ * <p>
+ * The format is one line for each of rows, cols and bombs, then one line per cell, left to right, top to bottom,
+ * with the number of the cell (-1 for a bomb), followed by 'r' if it is revealed or 'f' if it is flagged.
+ * <p>
+ * The cells go straight into the minefield as they are read. The numbers of the last three rows are kept,
+ * so each row is checked against the bombs around it as soon as the row below it has been read,
+ * the minefield is only returned once every cell has been checked
+ */
+class TextSaveReader {
+	private static final int BUFFER_SIZE = 8192;
+	private static final int FIRST_CELL_LINE = 4; // Lines 1 to 3 are rows, cols and bombs
+
+	private final Reader reader;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int position = 0;
+	private int length = 0;
+
+	// Where the next character is
+	private long line = 1;
+	private int column = 1;
+
+	// Where the last character was, errors are reported here
+	private long lastLine = 1;
+	private int lastColumn = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param reader where to read the save from, it is not closed
+	 */
+	TextSaveReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Reads the whole save
+	 *
+	 * @return the game
+	 * @throws IOException          if reading fails
+	 * @throws InvalidSaveException if the save is not valid, with the line and column of the first problem
+	 */
+	Minefield read() throws IOException, InvalidSaveException {
+		int rows = readHeaderLine();
+		int cols = readHeaderLine();
+		int bombs = readHeaderLine();
+		if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE || bombs <= 0 || bombs >= rows * cols) {
+			throw new InvalidSaveException("Invalid dimensions", 1, 1);
+		}
+
+		Minefield minefield;
+		try {
+			minefield = new Minefield(rows, cols, bombs);
+		} catch (IllegalArgumentException ex) {
+			throw new InvalidSaveException("Invalid dimensions", 1, 1);
+		}
+
+		byte[][] window = new byte[3][cols]; // The numbers of the last three rows, row i is in window[i % 3]
+		int bombsFound = 0;
+		for (int i = 0; i < rows; ++i) {
+			byte[] numbers = window[i % 3];
+			for (int j = 0; j < cols; ++j) {
+				int number;
+				int c = next();
+				if (c == '-') {
+					if (next() != '1') throw error("Expected -1");
+					number = Minefield.BOMB;
+					++bombsFound;
+				} else if (c >= '0' && c <= '8') {
+					number = c - '0';
+				} else {
+					throw error("Expected a number from -1 to 8");
+				}
+
+				boolean isRevealed = false;
+				boolean isFlagged = false;
+				c = next();
+				if (c == 'r') {
+					if (number == Minefield.BOMB) throw error("A bomb can not be revealed");
+					isRevealed = true;
+					c = next();
+				} else if (c == 'f') {
+					isFlagged = true;
+					c = next();
+				}
+
+				// The last line doesn't need a line break
+				boolean lastCell = i == rows - 1 && j == cols - 1;
+				if (c == '\r') c = next();
+				if (c != '\n' && !(c == -1 && lastCell)) {
+					throw error((c == -1) ? "The save file is cut off" : "Expected 'r', 'f' or the end of the line");
+				}
+
+				numbers[j] = (byte) number;
+				minefield.setNumber(i, j, number);
+				if (isRevealed || isFlagged) minefield.setCell(i, j, isRevealed, isFlagged);
+			}
+
+			// The row above this one has all of its neighbors now
+			if (i > 0) checkRow(window, i - 1, rows, cols);
+		}
+		checkRow(window, rows - 1, rows, cols);
+
+		if (next() != -1) throw error("Expected the end of the file");
+		if (bombsFound != bombs) throw new InvalidSaveException("Expected " + bombs + " bombs, found " + bombsFound, 3, 1);
+
+		return minefield;
+	}
+
+	private int readHeaderLine() throws IOException, InvalidSaveException {
+		int value = 0;
+		int c = next();
+		if (c < '0' || c > '9') throw error("Expected a positive number");
+
+		do {
+			if (value > (Integer.MAX_VALUE - (c - '0')) / 10) throw error("The number is too big");
+			value = value * 10 + (c - '0');
+			c = next();
+		} while (c >= '0' && c <= '9');
+
+		if (c == '\r') c = next();
+		if (c != '\n') throw error("Expected the end of the line");
+		return value;
+	}
+
+	/**
+	 * Checks that every number in a row matches the bombs around it
+	 *
+	 * @param window the numbers of the row and the rows next to it
+	 * @param row    the row to check, the row below it has to be read already
+	 * @param rows   the number of rows
+	 * @param cols   the number of columns
+	 * @throws InvalidSaveException if a number is wrong
+	 */
+	private static void checkRow(byte[][] window, int row, int rows, int cols) throws InvalidSaveException {
+		byte[] above = (row > 0) ? window[(row - 1) % 3] : null;
+		byte[] current = window[row % 3];
+		byte[] below = (row < rows - 1) ? window[(row + 1) % 3] : null;
+
+		for (int j = 0; j < cols; ++j) {
+			if (current[j] == Minefield.BOMB) continue;
+
+			// current[j] isn't a bomb, so it doesn't matter that it is counted
+			int numBombs = countBombs(above, j, cols) + countBombs(current, j, cols) + countBombs(below, j, cols);
+			if (numBombs != current[j]) {
+				throw new InvalidSaveException("The number doesn't match the " + numBombs + " bombs around it",
+						FIRST_CELL_LINE + (long) row * cols + j, 1);
+			}
+		}
+	}
+
+	private static int countBombs(byte[] numbers, int j, int cols) {
+		if (numbers == null) return 0;
+
+		int numBombs = 0;
+		for (int k = Math.max(j - 1, 0); k <= Math.min(j + 1, cols - 1); ++k) {
+			if (numbers[k] == Minefield.BOMB) ++numBombs;
+		}
+		return numBombs;
+	}
+
+	/**
+	 * Reads the next character
+	 *
+	 * @return the character, -1 at the end of the file
+	 * @throws IOException if reading fails
+	 */
+	private int next() throws IOException {
+		if (position == length) {
+			length = reader.read(buffer);
+			position = 0;
+			if (length <= 0) {
+				length = 0;
+				lastLine = line;
+				lastColumn = column;
+				return -1;
+			}
+		}
+
+		char c = buffer[position++];
+		lastLine = line;
+		lastColumn = column;
+		if (c == '\n') {
+			++line;
+			column = 1;
+		} else {
+			++column;
+		}
+		return c;
+	}
+
+	private InvalidSaveException error(String message) {
+		return new InvalidSaveException(message, lastLine, lastColumn);
+	}
+}
@@ -0,0 +1,42 @@
+package exceptions;
+
+public class InvalidSaveException extends Exception {
+	private final long line;
+	private final int column;
+
+	public InvalidSaveException(String message, long line, int column) {
+		super(message + " at line " + line + ", column " + column);
+		this.line = line;
+		this.column = column;
+	}
+
+	public InvalidSaveException(String message) {
+		super(message);
+		this.line = -1;
+		this.column = -1;
+	}
+
+	public InvalidSaveException() {
+		super();
+		this.line = -1;
+		this.column = -1;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the line of the error, starting at 1, -1 if it isn't known
+	 */
+	public long getLine() {
+		return this.line;
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the column of the error, starting at 1, -1 if it isn't known
+	 */
+	public int getColumn() {
+		return this.column;
+	}
+}
@@ -1,26 +1,54 @@
 package gui;
 
+import engine.HintEngine;
+import engine.MineProbabilities;
+import engine.Minefield;
+import engine.MoveJournal;
+import engine.MoveList;
+import engine.NoGuessGenerator;
+import engine.ProbabilitySolver;
+import engine.ProgressListener;
+import engine.Replay;
+import engine.SaveCatalog;
+import engine.SaveFile;
+import engine.SaveInfo;
 import exceptions.BombException;
+import exceptions.InvalidSaveException;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Random;
-
-public class Board extends JFrame implements ActionListener {
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeoutException;
+
+public class Board extends JFrame implements ActionListener, SquareListener {
 	public static final Font NOTO_MONO;
 	public static final Font NOTO_MONO_BOLD;
 	public static final FontMetrics NOTO_MONO_METRICS;
 	public static final int MENU_BAR_HEIGHT;
-	public static final int MAX_SAVE_SLOTS = 4;
 
 	private static final String CONFIG_DIR;
 	private static final String SAVE_DIR = "minesweeperSaves";
+	private static final String AUTOSAVE_DIR = "minesweeperAutosave";
+	private static final String REPLAY_DIR = "minesweeperReplays";
+	private static final int SAVES_PER_MENU = 20; // The rest go in a "More" submenu, so the menu fits on the screen
+	private static final DateFormat SAVE_DATE_FORMAT = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT);
 
 	static {
 		try {
@@ -54,18 +82,22 @@ public class Board extends JFrame implements ActionListener {
 		CONFIG_DIR = str;
 	}
 
-	private static final Random RANDOM = new Random();
+	private static final SplittableRandom SEEDS = new SplittableRandom(); // Where the seed of each new game comes from
 
 	private static final int DEFAULT_SQUARE_LENGTH = 54;
+	private static final long NO_GUESS_TIMEOUT = 10_000; // Milliseconds to look for a board that can be solved without guessing
 
 	private int numRows;
 	private int numCols;
 	private int numBombs;
-	private int numFlags = 0;
 
-	private Square[][] squares;
+	private Minefield minefield;
+	private HintEngine hints; // null while a replay is shown
 	private JMenuBar menuBar;
-	private JPanel field;
+	private JCheckBoxMenuItem probabilitiesItem;
+	private JCheckBoxMenuItem noGuessItem;
+	private FieldView field;
+	private JScrollPane fieldScrollPane;
 
 	private JLabel flagsPlacedLabel;
 
@@ -73,15 +105,37 @@ public class Board extends JFrame implements ActionListener {
 	private boolean wonGame = false;
 	private boolean firstClick = true;
 	private boolean hasX = false; // This boolean will store if our board has an "X" on it to mark which square the user should click first
+	private boolean busy = false; // True while a game is being saved or loaded
+
+	private final SaveCatalog saveCatalog; // null if saving and loading is disabled
+	private MoveJournal journal; // null if autosaving is disabled
+
+	private Replay replay; // The game being played, recorded as it goes, null if it has no seed
+	private long gameStartNanos; // When the game being played was started or loaded, the times in the replay are from this
+	private ReplayPlayer replayPlayer; // null unless a replay is being watched
+	private ProbabilitySolver solver; // Working out the chances shown on the field, null if they aren't shown
 
 	public Board(int rows, int cols, int bombs) {
-		if (!(rows > 0 && cols > 0 && bombs >= 0 && bombs <= rows * cols)) {
+		if (!(rows > 0 && cols > 0 && rows <= Minefield.MAX_ROWS && cols <= Minefield.MAX_COLS && bombs >= 0 && bombs <= rows * cols)) {
 			throw new IllegalArgumentException();
 		}
 		this.numRows = rows;
 		this.numCols = cols;
 		this.numBombs = bombs;
 
+		if (CONFIG_DIR != null) {
+			saveCatalog = new SaveCatalog(Paths.get(CONFIG_DIR, SAVE_DIR));
+			saveCatalog.start();
+		} else {
+			saveCatalog = null;
+		}
+
+		// The autosave is only left behind if the game stopped in the middle of a game,
+		// it has to be checked before the first game is generated, since that replaces it
+		MoveJournal autosave = (CONFIG_DIR != null) ? new MoveJournal(Paths.get(CONFIG_DIR, AUTOSAVE_DIR)) : null;
+		boolean recover = autosave != null && autosave.exists()
+				&& JOptionPane.showConfirmDialog(null, "Continue the last game?", "Recover Game", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+		journal = (recover) ? null : autosave;
 
 		// Use invokeAndWait because then when we go to use the height/width of the contentPane, it will actually be the right height/width
 		try {
@@ -89,7 +143,7 @@ public class Board extends JFrame implements ActionListener {
 				@Override
 				public void run() {
 					// Set the content pane's preferred size because then it will automatically account for the title bar and whatnot
-					getContentPane().setPreferredSize(new Dimension(numCols * DEFAULT_SQUARE_LENGTH, DEFAULT_SQUARE_LENGTH * numRows + MENU_BAR_HEIGHT));
+					getContentPane().setPreferredSize(getPreferredContentSize(numRows, numCols));
 					pack(); // resize the frame to fit the components (the content pane)
 
 					setTitle("Minesweeper");
@@ -117,78 +171,49 @@ public class Board extends JFrame implements ActionListener {
 		fileOptions.add(newGameItem);
 		fileOptions.addSeparator();
 
-		int[] availableSaveSlots = getAvailableSaveSlots();
-		JMenu submenu = new JMenu("Save");
-		submenu.setFont(NOTO_MONO);
-		for (int i = 0; i < MAX_SAVE_SLOTS; ++i) {
-			JMenuItem item = new JMenuItem();
-			item.setFont(NOTO_MONO);
-
-			boolean available = false;
-			for (int j = 0; j < availableSaveSlots.length; ++j) {
-				if (availableSaveSlots[j] == i) {
-					available = true;
-					break;
-				}
+		// The saves are listed when a menu is opened, from the catalog, so opening them never has to look at the disk
+		final JMenu SAVE_MENU = new JMenu("Save");
+		SAVE_MENU.setFont(NOTO_MONO);
+		SAVE_MENU.addMenuListener(new MenuListener() {
+			@Override
+			public void menuSelected(MenuEvent e) {
+				fillSaveMenu(SAVE_MENU, false);
 			}
 
-			final int FINAL_I = i;
-			final boolean FINAL_AVAILABLE = available;
-			item.addActionListener(new ActionListener() {
-				@Override
-				public void actionPerformed(ActionEvent actionEvent) {
-					if (!FINAL_AVAILABLE) {
-						int result = JOptionPane.showConfirmDialog(null, "Overwrite save slot?", "Overwrite Save Slot", JOptionPane.YES_NO_OPTION);
-						if (result != JOptionPane.YES_OPTION) return;
-					}
-
-					saveGame(FINAL_I);
-				}
-			});
-
-			item.setText("Slot " + i + ": " + ((available) ? " Available" : " In Use"));
-
-			submenu.add(item);
-		}
-		fileOptions.add(submenu);
+			@Override
+			public void menuDeselected(MenuEvent e) {
+			}
 
-		submenu = new JMenu("Load");
-		submenu.setFont(NOTO_MONO);
-		for (int i = 0; i < MAX_SAVE_SLOTS; ++i) {
-			JMenuItem item = new JMenuItem();
-			item.setFont(NOTO_MONO);
+			@Override
+			public void menuCanceled(MenuEvent e) {
+			}
+		});
+		fileOptions.add(SAVE_MENU);
 
-			boolean hasGame = true;
-			for (int j = 0; j < availableSaveSlots.length; ++j) {
-				if (availableSaveSlots[j] == i) {
-					hasGame = false;
-					break;
-				}
+		final JMenu LOAD_MENU = new JMenu("Load");
+		LOAD_MENU.setFont(NOTO_MONO);
+		LOAD_MENU.addMenuListener(new MenuListener() {
+			@Override
+			public void menuSelected(MenuEvent e) {
+				fillSaveMenu(LOAD_MENU, true);
 			}
 
-			final int FINAL_I = i;
-			final boolean FINAL_HAS_GAME = hasGame;
-			item.addActionListener(new ActionListener() {
-				@Override
-				public void actionPerformed(ActionEvent actionEvent) {
-					if (!FINAL_HAS_GAME) {
-						JOptionPane.showMessageDialog(null, "The slot is empty", "Empty Slot", JOptionPane.PLAIN_MESSAGE);
-						return;
-					}
+			@Override
+			public void menuDeselected(MenuEvent e) {
+			}
 
-					try {
-						loadGame(FINAL_I);
-					} catch (ClassNotFoundException e) {
-						// This should never happen
-					}
-				}
-			});
+			@Override
+			public void menuCanceled(MenuEvent e) {
+			}
+		});
+		fileOptions.add(LOAD_MENU);
+		fileOptions.addSeparator();
 
-			item.setText("Slot " + i + ": " + ((hasGame) ? " Has Game" : " Empty"));
+		JMenuItem watchReplayItem = new JMenuItem("Watch Replay...");
+		watchReplayItem.setFont(NOTO_MONO);
+		watchReplayItem.addActionListener(this);
 
-			submenu.add(item);
-		}
-		fileOptions.add(submenu);
+		fileOptions.add(watchReplayItem);
 
 		menuBar.add(fileOptions);
 
@@ -196,265 +221,230 @@ public class Board extends JFrame implements ActionListener {
 		JMenu gameOptions = new JMenu("Game");
 		gameOptions.setFont(NOTO_MONO);
 
+		JMenuItem hint = new JMenuItem("Hint");
+		hint.setFont(NOTO_MONO);
+		hint.addActionListener(this);
+
+		gameOptions.add(hint);
+
+		probabilitiesItem = new JCheckBoxMenuItem("Show Probabilities");
+		probabilitiesItem.setFont(NOTO_MONO);
+		probabilitiesItem.addActionListener(this);
+
+		gameOptions.add(probabilitiesItem);
+
 		JMenuItem changeDimensions = new JMenuItem("Change Board Size");
 		changeDimensions.setFont(NOTO_MONO);
 		changeDimensions.addActionListener(this);
 
 		gameOptions.add(changeDimensions);
+
+		JMenuItem seed = new JMenuItem("Seed");
+		seed.setFont(NOTO_MONO);
+		seed.addActionListener(this);
+
+		gameOptions.add(seed);
+
+		noGuessItem = new JCheckBoxMenuItem("No Guessing");
+		noGuessItem.setFont(NOTO_MONO);
+		noGuessItem.setToolTipText("New games can be solved from the \u00D7 without guessing");
+		noGuessItem.addActionListener(this);
+
+		gameOptions.add(noGuessItem);
 		menuBar.add(gameOptions);
 
 		// Flags placed
-		flagsPlacedLabel = new JLabel("" + (numBombs - numFlags));
+		flagsPlacedLabel = new JLabel("" + numBombs);
 		flagsPlacedLabel.setFont(NOTO_MONO);
 		menuBar.add(flagsPlacedLabel);
 
 		// Set up the field
-		field = new JPanel();
-		field.setBounds(0, MENU_BAR_HEIGHT, this.getContentPane().getWidth(), this.getContentPane().getHeight() - MENU_BAR_HEIGHT);
-		field.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
-		generateField();
+		field = new FieldView();
+
+		// The scroll pane only shows part of the field when the board doesn't fit in the window
+		fieldScrollPane = new JScrollPane(field);
+		fieldScrollPane.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
+		fieldScrollPane.setBounds(0, MENU_BAR_HEIGHT, this.getContentPane().getWidth(), this.getContentPane().getHeight() - MENU_BAR_HEIGHT);
+
+		// The field is one component, so one handler takes care of the mouse for every square
+		new FieldInputHandler(field, this);
+
+		generateField(SEEDS.nextLong());
 
 		this.add(menuBar);
-		this.add(field);
+		this.add(fieldScrollPane);
 		this.setVisible(true);
 
+		if (recover) {
+			journal = autosave;
+			recoverGame();
+		}
+
 		this.getRootPane().addComponentListener(new ComponentAdapter() {
+			private int lastWidth = -1;
+			private int lastHeight = -1;
+
 			@Override
 			public void componentResized(ComponentEvent e) {
-				// Resize the menuBar and fieldPanel
-				menuBar.setSize(getContentPane().getWidth(), MENU_BAR_HEIGHT);
-				field.setSize(getContentPane().getWidth(), getContentPane().getHeight() - MENU_BAR_HEIGHT);
-
-				// Resize all the icons on the squares
-				for (int i = 0; i < numRows; ++i) {
-					for (int j = 0; j < numCols; ++j) {
-						Square s = squares[i][j];
-						if (s.getIsFlagged()) {
-							try {
-								setSquareIcon(s, "icons/flag.png");
-							} catch (Exception ex) {
-								System.err.println(ex);
-							}
-						} else if (s.isBomb() && !wonGame && gameOver) {
-							try {
-								setSquareIcon(s, "icons/bomb.png");
-							} catch (Exception ex) {
-								System.err.println(ex);
-							}
-						}
-					}
-				}
+				// Moving the window can also fire this, skip it if the content pane is the same size
+				int width = getContentPane().getWidth();
+				int height = getContentPane().getHeight();
+				if (width == lastWidth && height == lastHeight) return;
+				lastWidth = width;
+				lastHeight = height;
+
+				// Resize the menuBar and field, the field rescales the icons by itself once the resizing stops
+				menuBar.setSize(width, MENU_BAR_HEIGHT);
+				fieldScrollPane.setSize(width, height - MENU_BAR_HEIGHT);
+				fieldScrollPane.validate(); // The scroll pane is not in a layout, so it has to be told to lay out the field
 			}
 		});
 	}
 
-	private void setSquareIcon(Square s, String path) throws IOException {
-		BufferedImage icon = ImageIO.read(Board.class.getClassLoader().getResource(path));
-		int width = icon.getWidth(), height = icon.getHeight();
-		int newWidth, newHeight;
-		// Scale the new width to be proportional to the height
-		newHeight = s.getHeight();
-		newWidth = width * newHeight / height; // Given w1/h1 = w2/h2, w2 = h2w1/h1
-
-		int newWidthForWidth, newHeightForWidth;
-		// Scale the new width to be proportional to the height
-		newWidthForWidth = s.getWidth();
-		newHeightForWidth = height * newWidthForWidth / width;
-
-		// now, set the newWidth and newHeight variables to contain whichever pair has the smaller width
-		if (newWidth > newWidthForWidth) {
-			newWidth = newWidthForWidth;
-			newHeight = newHeightForWidth;
-		}
-
-		// Add a slight pad
-		newWidth -= 5;
-		newHeight -= 5;
-
-		Image newIcon = icon.getScaledInstance(newWidth, newHeight, BufferedImage.SCALE_DEFAULT);
-		s.setIcon(new ImageIcon(newIcon));
+	private static Dimension getPreferredContentSize(int rows, int cols) {
+		// Use the default square size, but don't make the window bigger than the screen, the field scrolls if it has to
+		Rectangle screen = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
+		int width = Math.min(cols * DEFAULT_SQUARE_LENGTH, screen.width * 9 / 10);
+		int height = Math.min(rows * DEFAULT_SQUARE_LENGTH, screen.height * 9 / 10 - MENU_BAR_HEIGHT);
+		return new Dimension(width, height + MENU_BAR_HEIGHT);
 	}
 
-	private void generateField() {
-		field.removeAll(); // Clear the buttons
-		field.repaint();
-		field.revalidate(); // I have no idea why we need to do this, we just do
-		field.setLayout(new GridLayout(numRows, numCols)); // Reset the layout
+	private void generateField(long seed) {
+		minefield = new Minefield(numRows, numCols, numBombs, seed);
+		hints = new HintEngine(minefield);
+		updateFlagsPlacedLabel();
 
-		flagsPlacedLabel.setText("" + (numBombs - numFlags));
+		// put an x on the first 0, that way the user doesn't have to guess on the first click
+		int startCell = minefield.getStartCell();
+		hasX = startCell != -1;
 
-		Point[] bombLocations = new Point[numBombs];
-		for (int i = 0; i < numBombs; ++i) {
-			int x, y;
-			x = RANDOM.nextInt(numCols);
-			y = RANDOM.nextInt(numRows);
+		field.setMinefield(minefield, startCell);
+		startJournal();
+		startReplay();
+		updateProbabilities();
+	}
 
-			bombLocations[i] = new Point(x, y);
-			;
+	/**
+	 * Starts autosaving the current game, if autosaving fails, it is turned off, the game can still be saved by hand
+	 */
+	private void startJournal() {
+		if (journal == null) return;
 
-			// Check if there is already a bomb here
-			for (int j = 0; j < i; ++j) {
-				if (bombLocations[j].x == x && bombLocations[j].y == y) {
-					// Decrement i so when the outer loop continues, it will restart the current iteration
-					--i;
-					break;
-				}
-			}
+		try {
+			journal.start(minefield);
+		} catch (IOException ex) {
+			System.err.println(ex);
+			discardJournal();
+			journal = null;
 		}
+	}
 
-		// reset the squares array and set the bombs
-		squares = new Square[numRows][numCols];
-		for (int i = 0; i < numBombs; ++i) {
-			squares[bombLocations[i].y][bombLocations[i].x] = new Square(-1);
-			squares[bombLocations[i].y][bombLocations[i].x].setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY));
-		}
+	/**
+	 * Starts recording the current game, a game loaded from an old save has no seed, so it can't be recorded
+	 */
+	private void startReplay() {
+		stopReplayPlayer();
+		replay = (minefield.hasSeed()) ? new Replay(minefield) : null;
+		gameStartNanos = System.nanoTime();
+	}
 
-		// Iterate through every square and determine its number
-		hasX = false;
-		for (int i = 0; i < numRows; ++i) {
-			for (int j = 0; j < numCols; ++j) {
-				// Note: j is x
-				//       i is y
-
-				if (squares[i][j] == null) {
-					// I was way too lazy to hard code the edge cases (haha, get it?), so I just did this instead
-					// Yes, I do know that handling the edge cases separately is much more performant
-					// I am so not funny
-					int numNeighborBombs = 0;
-
-					// There can be a maximum of 8 neighbors, test them all
-					// (i-1,j-1), (i-1, j ), (i-1,j+1)
-					// ( i ,j-1), ( i , j ), ( i ,j+1)
-					// (i+1,j-1), (i+1, j ), (i+1,j+1)
-					Point[] neighbors = new Point[]{
-							new Point(j - 1, i - 1), new Point(j, i - 1), new Point(j + 1, i - 1),
-							new Point(j - 1, i), new Point(j, i), new Point(j + 1, i),
-							new Point(j - 1, i + 1), new Point(j, i + 1), new Point(j + 1, i + 1)
-					};
-
-					for (int k = 0; k < neighbors.length; ++k) {
-						try {
-							if (squares[neighbors[k].y][neighbors[k].x].isBomb()) {
-								++numNeighborBombs;
-							}
-						} catch (Exception ex) {
-							// Ignore it, keep going
-						}
-					}
+	private int getGameTime() {
+		return (int) Math.min(Integer.MAX_VALUE, (System.nanoTime() - gameStartNanos) / 1_000_000);
+	}
 
-					squares[i][j] = new Square(numNeighborBombs);
-					squares[i][j].setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY));
+	/**
+	 * Writes the replay of a game that just ended to the replay directory, a replay is only a few bytes per move,
+	 * so it is written right away
+	 *
+	 * @param won true if the game was won
+	 */
+	private void saveReplay(boolean won) {
+		if (replay == null || CONFIG_DIR == null) return;
 
-					// put an x on the first 0 we find, that way the user doesn't have to guess on the first click
-					if (squares[i][j].getNUMBER() == 0 && !hasX) {
-						hasX = true;
-						squares[i][j].setForeground(Color.DARK_GRAY);
-						squares[i][j].setText("<html>&times;</html>");
-					}
-				}
+		replay.setResult((won) ? Replay.WON : Replay.LOST);
+		try {
+			Path dir = Paths.get(CONFIG_DIR, REPLAY_DIR);
+			Files.createDirectories(dir);
+			String name = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss-SSS").format(new Date());
+			replay.write(dir.resolve(name + Replay.EXTENSION));
+		} catch (IOException ex) {
+			System.err.println(ex);
+		}
+		replay = null;
+	}
 
+	private void recordMove(byte type, int i, int j) {
+		if (replay != null) replay.add(type, i, j, getGameTime());
+		if (journal == null) return;
 
-				// Now, the current square is either a bomb, or its number should be correctly calculated
-				// checkerboard pattern
-				if ((i + j) % 2 == 0) {
-					squares[i][j].setBackground(new Color(0x1B8300)); // darker green
-				} else {
-					squares[i][j].setBackground(new Color(0x25B500)); // lighter green
-				}
+		try {
+			journal.record(type, i, j);
+		} catch (IOException ex) {
+			System.err.println(ex);
+			discardJournal();
+			journal = null;
+		}
+	}
 
-				squares[i][j].addActionListener(this);
+	private void discardJournal() {
+		if (journal == null) return;
+
+		try {
+			journal.discard();
+		} catch (IOException ex) {
+			System.err.println(ex);
+		}
+	}
 
-				// For some stupid reason, actionPerformed doesn't get invoked when right click, so we have to manually do this
-				// Also we need to create final copies of i and j if we wish to use them in the anonymous class
-				final int FINAL_I = i;
-				final int FINAL_J = j;
-				squares[i][j].addMouseListener(new MouseAdapter() {
-					private final Color SQUARE_COLOR = squares[FINAL_I][FINAL_J].getBackground();
+	/**
+	 * Rebuilds the game that was being played when the game last stopped, from the autosave
+	 */
+	private void recoverGame() {
+		final Path AUTOSAVE_DIR_PATH = Paths.get(CONFIG_DIR, AUTOSAVE_DIR);
+		final MoveJournal JOURNAL = journal;
 
-					@Override
-					public void mouseClicked(MouseEvent e) {
-						if (gameOver) return;
-						Square s = (Square) e.getSource();
-						if (SwingUtilities.isRightMouseButton(e) && !s.getIsRevealed()) {
-							if (!s.getIsFlagged() && numBombs - numFlags > 0) {
-								try {
-									setSquareIcon(s, "icons/flag.png");
-
-									s.setIsFlagged(true);
-									++numFlags;
-									flagsPlacedLabel.setText("" + (numBombs - numFlags));
-								} catch (Exception ex) {
-									System.err.println(ex);
-								}
-							} else if (s.getIsFlagged()) {
-								s.setIcon(null);
-								s.setIsFlagged(false);
-								--numFlags;
-								flagsPlacedLabel.setText("" + (numBombs - numFlags));
-							}
-						} else if (!SwingUtilities.isLeftMouseButton(e) && s.getIsRevealed()) {
-							// If it is not the left mouse button, but the square is already revealed,
-							// auto-reveal the neighbors, we can do this by just calling our actionPerformed
-							// We excluded left mouse button because those events are picked up by actionPerformed
-							actionPerformed(new ActionEvent(e.getSource(), 0, "command"));
-						}
-					}
+		final ProgressMonitor PROGRESS = new ProgressMonitor(this, "Recovering the last game", null, 0, 100);
+		runInBackground(new SwingWorker<LoadedGame, Void>() {
+			@Override
+			protected LoadedGame doInBackground() throws Exception {
+				Minefield recovered = MoveJournal.recover(AUTOSAVE_DIR_PATH);
+				if (recovered == null || recovered.isWon()) return null;
+				return prepareLoadedGame(recovered, JOURNAL);
+			}
 
-					@Override
-					public void mouseEntered(MouseEvent mouseEvent) {
-						if (mouseEvent.getSource() instanceof Square s) {
-							s.setBackground(new Color(0xC9C9C9));
-						}
-					}
+			@Override
+			protected void done() {
+				PROGRESS.close();
+				setBusy(false);
 
-					@Override
-					public void mouseExited(MouseEvent mouseEvent) {
-						if (mouseEvent.getSource() instanceof Square s) {
-							if (!s.getIsRevealed()) {
-								s.setBackground(SQUARE_COLOR);
-							} else {
-								s.setBackground(new Color(0xFFBC5B)); // Show the revealed color if the square is revealed
-							}
-						}
+				try {
+					LoadedGame recovered = get();
+					if (recovered != null) {
+						showLoadedGame(recovered);
+						return;
 					}
-				});
+				} catch (CancellationException | InterruptedException ex) {
+					// Cancelled, keep the new game
+				} catch (ExecutionException ex) {
+					JOptionPane.showMessageDialog(null, "The last game could not be recovered\n" + ex.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+				}
 
-				squares[i][j].setFont(NOTO_MONO_BOLD);
-				squares[i][j].setFocusPainted(false); // Do not outline the text when it is focused
-				field.add(squares[i][j]);
+				// Autosave the game that is being played instead
+				startJournal();
 			}
-		}
+		}, PROGRESS);
 	}
 
 	private void endGame(boolean won) {
 		this.gameOver = true;
 		this.wonGame = won;
+		discardJournal(); // There is nothing to recover once the game is over
+		saveReplay(won);
+		updateProbabilities(); // Nothing is left to guess
 
 		if (!won) {
-			// Reveal all the bombs if we lost
-			for (int i = 0; i < numRows; ++i) {
-				for (int j = 0; j < numCols; ++j) {
-					if (squares[i][j].isBomb()) {
-						try {
-							setSquareIcon(squares[i][j], "icons/bomb.png");
-						} catch (Exception ex) {
-
-						}
-					} else {
-						try {
-							squares[i][j].reveal();
-						} catch (BombException ex) {
-							// This should never happen
-						}
-
-						if (squares[i][j].getIsFlagged()) {
-							// Underline squares that were flagged, but were not bombs
-							squares[i][j].setIcon(null);
-							squares[i][j].setText("<html><u><b>" + squares[i][j].getNUMBER() + "</b></u></html>");
-						}
-					}
-				}
-			}
+			// The field shows all the bombs once the minefield is lost
+			field.repaint();
 		}
 
 		// Show a popup window
@@ -521,115 +511,236 @@ public class Board extends JFrame implements ActionListener {
 		popup.requestFocus();
 	}
 
-	private void revealZeros() {
-		// Keep looping to reveal every neighboring square
-		for (; ; ) {
-			boolean revealed = false;
-			for (int i = 0; i < numRows; ++i) {
-				for (int j = 0; j < numCols; ++j) {
-					// There can be a maximum of 8 neighbors, test them all
-					// (i-1,j-1), (i-1, j ), (i-1,j+1)
-					// ( i ,j-1), ( i , j ), ( i ,j+1)
-					// (i+1,j-1), (i+1, j ), (i+1,j+1)
-					Point[] neighbors = new Point[]{
-							new Point(j - 1, i - 1), new Point(j, i - 1), new Point(j + 1, i - 1),
-							new Point(j - 1, i), new Point(j, i), new Point(j + 1, i),
-							new Point(j - 1, i + 1), new Point(j, i + 1), new Point(j + 1, i + 1)
-					};
-
-					for (int k = 0; k < neighbors.length; ++k) {
-						// Get the square of the current neighbor
-						try {
-							Square neighbor = squares[neighbors[k].y][neighbors[k].x];
-							if (neighbor.getIsRevealed() && neighbor.getNUMBER() == 0
-									&& !squares[i][j].getIsFlagged()
-									&& !squares[i][j].getIsRevealed()) {
-								// If the neighbor is a revealed 0, reveal the current square if it is not flagged
-								squares[i][j].reveal();
-								revealed = true;
-								break; // We've already revealed this square, we can exit this loop
-							}
-						} catch (IndexOutOfBoundsException ex) {
-							// Ignore it, keep going
-						} catch (BombException ex) {
-							// This should never happen
-						}
+	private void updateFlagsPlacedLabel() {
+		// The minefield keeps these counts up to date, so this doesn't need to look at the squares
+		flagsPlacedLabel.setText("" + (minefield.getNumBombs() - minefield.getNumFlags()));
+		flagsPlacedLabel.setToolTipText(minefield.getNumSafeHidden() + " safe squares left");
+	}
+
+	private void newGame() {
+		if (noGuessItem.isSelected()) {
+			newNoGuessGame();
+		} else {
+			newGame(SEEDS.nextLong());
+		}
+	}
+
+	/**
+	 * Starts a new game with the current size that can be solved from the "X" without guessing, the boards are checked on another thread,
+	 * the current game stays until one is found. If none is found in time, or it is cancelled, a normal board is used instead
+	 */
+	private void newNoGuessGame() {
+		if (busy) return;
+
+		final int ROWS = numRows;
+		final int COLS = numCols;
+		final int BOMBS = numBombs;
+		final SplittableRandom CANDIDATE_SEEDS = SEEDS.split(); // SEEDS is only used on this thread
+
+		final ProgressMonitor PROGRESS = new ProgressMonitor(this, "Looking for a board that doesn't need guessing", null, 0, 100);
+		runInBackground(new SwingWorker<Long, Void>() {
+			@Override
+			protected Long doInBackground() throws Exception {
+				return NoGuessGenerator.findSeed(ROWS, COLS, BOMBS, CANDIDATE_SEEDS, NO_GUESS_TIMEOUT, new ProgressListener() {
+					@Override
+					public void progress(long done, long total) {
+						setProgress((int) (done * 100 / total));
 					}
-				}
+				});
 			}
 
-			if (!revealed) {
-				break; // break if we've had a run where we never revealed anything
+			@Override
+			protected void done() {
+				PROGRESS.close();
+				setBusy(false);
+
+				try {
+					newGame(get());
+					return;
+				} catch (CancellationException | InterruptedException ex) {
+					// Cancelled, a normal board is used
+				} catch (ExecutionException ex) {
+					if (ex.getCause() instanceof TimeoutException) {
+						JOptionPane.showMessageDialog(null, "No board that can be solved without guessing was found, try fewer bombs", "No Guessing", JOptionPane.INFORMATION_MESSAGE);
+					} else {
+						JOptionPane.showMessageDialog(null, ex.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+					}
+				}
+				newGame(SEEDS.nextLong());
 			}
-		}
+		}, PROGRESS);
 	}
 
-	private void newGame() {
+	/**
+	 * Starts a new game with the current size, the same seed and size always make the same board
+	 *
+	 * @param seed where the bombs come from
+	 */
+	private void newGame(long seed) {
+		if (busy) return;
+
 		this.firstClick = true;
 		this.hasX = false;
 		this.wonGame = false;
 		this.gameOver = false;
-		this.numFlags = 0;
 
 		Window[] windows = Window.getWindows();
 		for (int i = 0; i < windows.length; ++i) {
 			if (windows[i] != this) windows[i].dispose();
 		}
 
-		generateField();
+		generateField(seed);
+	}
+
+	/**
+	 * Lets the user pick a replay from the replay directory, and plays it
+	 */
+	private void chooseReplay() {
+		if (busy) return;
+		if (CONFIG_DIR == null) {
+			JOptionPane.showMessageDialog(null, "Replays are disabled", "Error", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+
+		JFileChooser chooser = new JFileChooser(Paths.get(CONFIG_DIR, REPLAY_DIR).toFile());
+		chooser.setFileFilter(new FileNameExtensionFilter("Replays", Replay.EXTENSION.substring(1)));
+		if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+		try {
+			watchReplay(Replay.read(chooser.getSelectedFile().toPath()));
+		} catch (IOException | InvalidSaveException ex) {
+			JOptionPane.showMessageDialog(null, "The replay could not be loaded\n" + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+		}
 	}
 
-	private String getGameAsString() {
-		// Spec:
-		// line 0: num rows
-		// line 1: num cols
-		// line 2: num bombs
-		// rest: each individual square containing the number, 'r' for revealed, and 'f' for flagged, the order will be left to right, top to bottom
-		// Example of save file:
-		/*
-		4
-		4
-		4
-		0r
-		1r
-		2
-		22
-		0r
-		2r
-		-1f
-		-1f
-		1r
-		3r
-		-1f
-		3
-		-1
-		2
-		1
-		1
-		 */
-
-		StringBuilder str = new StringBuilder();
-		str.append(String.format("%d\n%d\n%d\n", numRows, numCols, numBombs));
-		for (int i = 0; i < numRows * numCols; ++i) {
-			int row = i / numCols;
-			int col = i % numCols;
-			Square s = squares[row][col];
-
-			str.append(s.getNUMBER());
-			if (s.getIsFlagged()) {
-				str.append('f');
-			} else if (s.getIsRevealed()) {
-				str.append('r');
+	/**
+	 * Shows the board of a replay and starts playing it, this ends the game being played, but its autosave is kept until a new game starts
+	 *
+	 * @param watched the replay
+	 */
+	private void watchReplay(Replay watched) {
+		stopReplayPlayer();
+		final Minefield REPLAY_MINEFIELD = new Minefield(watched.getNumRows(), watched.getNumCols(), watched.getNumBombs(), watched.getSeed());
+
+		getContentPane().setPreferredSize(getPreferredContentSize(watched.getNumRows(), watched.getNumCols()));
+		pack();
+
+		// Clicking does nothing while a replay is shown, until a new game is started
+		firstClick = false;
+		hasX = false;
+		gameOver = true;
+		wonGame = false;
+		replay = null;
+
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				numBombs = watched.getNumBombs();
+				numRows = watched.getNumRows();
+				numCols = watched.getNumCols();
+				minefield = REPLAY_MINEFIELD;
+				hints = null;
+				updateProbabilities(); // Stops the one for the game that was being played
+				updateFlagsPlacedLabel();
+				field.setMinefield(minefield, -1);
+
+				replayPlayer = new ReplayPlayer(watched, minefield, field, new Runnable() {
+					@Override
+					public void run() {
+						updateFlagsPlacedLabel();
+					}
+				}, Board.this);
+				replayPlayer.start();
 			}
+		});
+	}
+
+	private void stopReplayPlayer() {
+		if (replayPlayer == null) return;
+
+		replayPlayer.stop();
+		replayPlayer = null;
+	}
 
-			str.append('\n');
+	/**
+	 * Highlights a square that is certainly safe, or if there are none, a bomb that isn't flagged yet
+	 */
+	private void showHint() {
+		if (gameOver || busy || hints == null) return;
+
+		if (firstClick && hasX) {
+			field.setHintCell(minefield.getStartCell(), false); // Nothing is revealed yet, but the "X" is always safe
+			return;
+		}
+
+		int cell = hints.getSafeCell();
+		boolean isBomb = false;
+		if (cell == -1) {
+			cell = hints.getBombCell();
+			isBomb = true;
+		}
+		if (cell == -1) {
+			JOptionPane.showMessageDialog(this, "No square is certainly safe, you will have to guess", "Hint", JOptionPane.INFORMATION_MESSAGE);
+			return;
 		}
-		return str.toString();
+		field.setHintCell(cell, isBomb);
 	}
 
-	private void saveGame(int slot) {
-		if (slot < 0 || slot > 3) return;
-		if (CONFIG_DIR == null) {
+	/**
+	 * Starts working out the chance of each hidden square being a bomb, if they are shown. The solve for the last move is cancelled,
+	 * and the old chances are cleared, so a click never waits for a solve, the new chances are shown once they are worked out
+	 */
+	private void updateProbabilities() {
+		if (solver != null) solver.cancel();
+		solver = null;
+		field.setProbabilities(null);
+		if (!probabilitiesItem.isSelected() || gameOver || hints == null) return;
+
+		// A snapshot of the position is taken now, on this thread, so moves can be made while it is solved.
+		// It is only a copy of the revealed bits, the frontier is found in the background with the rest of the work
+		final ProbabilitySolver SOLVER = new ProbabilitySolver(minefield);
+		solver = SOLVER;
+		new SwingWorker<MineProbabilities, Void>() {
+			@Override
+			protected MineProbabilities doInBackground() {
+				return SOLVER.solve(ForkJoinPool.commonPool());
+			}
+
+			@Override
+			protected void done() {
+				if (solver != SOLVER) return; // A move was made since, these chances are for a position that is gone
+
+				try {
+					field.setProbabilities(get()); // null if it was too big to work out, then nothing is shown
+				} catch (InterruptedException | ExecutionException ex) {
+					System.err.println(ex);
+				}
+			}
+		}.execute();
+	}
+
+	/**
+	 * Shows the seed of the current game, so it can be shared, entering a different seed starts a new game with it
+	 */
+	private void showSeedDialog() {
+		if (busy) return;
+
+		// A game loaded from an old save has no seed
+		String current = (minefield.hasSeed()) ? Long.toString(minefield.getSeed()) : "";
+		String message = (minefield.hasSeed()) ? "The seed of this game, enter another one to play it:" : "This game has no seed, enter one to play it:";
+
+		Object input = JOptionPane.showInputDialog(this, message, "Seed", JOptionPane.PLAIN_MESSAGE, null, null, current);
+		if (input == null || input.toString().trim().equals(current)) return;
+
+		try {
+			newGame(Long.parseLong(input.toString().trim()));
+		} catch (NumberFormatException ex) {
+			JOptionPane.showMessageDialog(this, "A seed is a whole number", "Error", JOptionPane.ERROR_MESSAGE);
+		}
+	}
+
+	private void saveGame(String name) {
+		if (saveCatalog == null) {
 			JOptionPane.showMessageDialog(null, "Saving and loading is disabled", "Saving and loading disabled", JOptionPane.WARNING_MESSAGE);
 			return;
 		}
@@ -663,155 +774,192 @@ public class Board extends JFrame implements ActionListener {
 			return;
 		}
 
-		File save = new File(Paths.get(CONFIG_DIR, SAVE_DIR, slot + ".txt").toString());
+		final String NAME = name;
+		final Minefield SAVED_MINEFIELD = minefield;
 
-		// Delete the file if it does exist
-		if (save.exists() && !save.delete()) {
-			JOptionPane.showMessageDialog(null, "The existing save file could not be deleted", "Error", JOptionPane.ERROR_MESSAGE);
-			return;
-		}
-
-		try {
-			if (!save.createNewFile()) {
-				JOptionPane.showMessageDialog(null, "The save file was not created", "Error", JOptionPane.ERROR_MESSAGE);
-			}
-		} catch (IOException ex) {
-			JOptionPane.showMessageDialog(null, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-		}
-
-		try {
-			FileWriter fw = new FileWriter(save, false);
-			PrintWriter pw = new PrintWriter(fw);
-			pw.write(getGameAsString());
-
-			pw.close();
-			fw.close();
-		} catch (IOException ex) {
-			JOptionPane.showMessageDialog(null, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-		}
-
-
-		// re-create the fileOptions menu
-		JMenu fileOptions = null;
+		// Write on another thread so the window doesn't freeze, the board can't be changed until it is done.
+		// The save is written to a temporary file first, so the old save is kept if this fails or is cancelled
+		final ProgressMonitor PROGRESS = new ProgressMonitor(this, "Saving \"" + name + "\"", null, 0, 100);
+		runInBackground(new SwingWorker<Void, Void>() {
+			@Override
+			protected Void doInBackground() throws Exception {
+				SaveFile.writeAtomically(SAVED_MINEFIELD, saveCatalog.getSavePath(NAME), new ProgressListener() {
+					@Override
+					public void progress(long done, long total) {
+						setProgress((int) (done * 100 / total));
+					}
+				});
 
-		for (int i = 0; i < menuBar.getMenuCount(); ++i) {
-			if (menuBar.getMenu(i).getText().equals("File")) {
-				fileOptions = menuBar.getMenu(i);
-				break;
+				// The new save replaces an old text save with the same name
+				Files.deleteIfExists(saveCatalog.getTextSavePath(NAME));
+				saveCatalog.saved(NAME, SAVED_MINEFIELD);
+				return null;
 			}
-		}
-
-		fileOptions.removeAll();
-
-
-		JMenuItem newGameItem = new JMenuItem("New");
-		newGameItem.setFont(NOTO_MONO);
-		newGameItem.addActionListener(this);
 
-		fileOptions.add(newGameItem);
-		fileOptions.addSeparator();
-
-		int[] availableSaveSlots = getAvailableSaveSlots();
-		JMenu submenu = new JMenu("Save");
-		submenu.setFont(NOTO_MONO);
-		for (int i = 0; i < MAX_SAVE_SLOTS; ++i) {
-			JMenuItem item = new JMenuItem();
-			item.setFont(NOTO_MONO);
+			@Override
+			protected void done() {
+				PROGRESS.close();
+				setBusy(false);
 
-			boolean available = false;
-			for (int j = 0; j < availableSaveSlots.length; ++j) {
-				if (availableSaveSlots[j] == i) {
-					available = true;
-					break;
+				try {
+					get();
+				} catch (CancellationException | InterruptedException ex) {
+					// Cancelled, the old save is still there
+				} catch (ExecutionException ex) {
+					JOptionPane.showMessageDialog(null, ex.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
 				}
 			}
+		}, PROGRESS);
+	}
 
-			final int FINAL_I = i;
-			final boolean FINAL_AVAILABLE = available;
-			item.addActionListener(new ActionListener() {
+	/**
+	 * Lists the saves in the Save or Load menu, from the catalog, this never looks at the disk
+	 *
+	 * @param menu       the menu to fill
+	 * @param forLoading true for the Load menu, false for the Save menu
+	 */
+	private void fillSaveMenu(JMenu menu, boolean forLoading) {
+		menu.removeAll();
+
+		if (saveCatalog == null) {
+			JMenuItem disabled = new JMenuItem("Saving and loading is disabled");
+			disabled.setFont(NOTO_MONO);
+			disabled.setEnabled(false);
+			menu.add(disabled);
+			return;
+		}
+
+		if (!forLoading) {
+			JMenuItem newSave = new JMenuItem("New Save...");
+			newSave.setFont(NOTO_MONO);
+			newSave.addActionListener(new ActionListener() {
 				@Override
 				public void actionPerformed(ActionEvent actionEvent) {
-					if (!FINAL_AVAILABLE) {
-						int result = JOptionPane.showConfirmDialog(null, "Overwrite save slot?", "Overwrite Save Slot", JOptionPane.YES_NO_OPTION);
+					String name = JOptionPane.showInputDialog(Board.this, "Name the save", "New Save", JOptionPane.PLAIN_MESSAGE);
+					if (name == null) return;
+					name = name.trim();
+
+					if (!SaveCatalog.isValidName(name)) {
+						JOptionPane.showMessageDialog(null, "A name can only have letters, digits, spaces, '_', '-' and '.',\nit has to start with a letter or digit, and can be at most "
+								+ SaveCatalog.MAX_NAME_LENGTH + " characters long", "Invalid Name", JOptionPane.WARNING_MESSAGE);
+						return;
+					}
+					if (saveCatalog.contains(name)) {
+						int result = JOptionPane.showConfirmDialog(null, "Overwrite save?", "Overwrite Save", JOptionPane.YES_NO_OPTION);
 						if (result != JOptionPane.YES_OPTION) return;
 					}
 
-					saveGame(FINAL_I);
+					saveGame(name);
 				}
 			});
-
-			item.setText("Slot " + i + ": " + ((available) ? " Available" : " In Use"));
-
-			submenu.add(item);
+			menu.add(newSave);
 		}
-		fileOptions.add(submenu);
 
-		submenu = new JMenu("Load");
-		submenu.setFont(NOTO_MONO);
-		for (int i = 0; i < MAX_SAVE_SLOTS; ++i) {
-			JMenuItem item = new JMenuItem();
-			item.setFont(NOTO_MONO);
+		List<SaveInfo> saves = saveCatalog.getSaves();
+		if (!saveCatalog.isLoaded() || (forLoading && saves.isEmpty())) {
+			JMenuItem status = new JMenuItem((saveCatalog.isLoaded()) ? "No saves" : "Looking for saves...");
+			status.setFont(NOTO_MONO);
+			status.setEnabled(false);
+			menu.add(status);
+		}
 
-			boolean empty = true;
-			for (int j = 0; j < availableSaveSlots.length; ++j) {
-				if (availableSaveSlots[j] == i) {
-					empty = false;
-					break;
-				}
-			}
+		if (!forLoading && !saves.isEmpty()) menu.addSeparator();
+		addSaveItems(menu, saves, 0, forLoading);
+	}
 
-			final int FINAL_I = i;
-			final boolean FINAL_EMPTY = empty;
+	/**
+	 * Adds a page of saves to a menu, if there are more, they go in a "More" submenu that is filled when it is opened
+	 *
+	 * @param menu       the menu to add to
+	 * @param saves      every save
+	 * @param start      the first save to add
+	 * @param forLoading true if clicking a save loads it, false if it saves over it
+	 */
+	private void addSaveItems(JMenu menu, final List<SaveInfo> saves, int start, final boolean forLoading) {
+		int end = Math.min(start + SAVES_PER_MENU, saves.size());
+		for (int i = start; i < end; ++i) {
+			final String NAME = saves.get(i).getName();
+
+			JMenuItem item = new JMenuItem(describeSave(saves.get(i)));
+			item.setFont(NOTO_MONO);
 			item.addActionListener(new ActionListener() {
 				@Override
 				public void actionPerformed(ActionEvent actionEvent) {
-					if (!FINAL_EMPTY) {
-						JOptionPane.showMessageDialog(null, "The slot is empty", "Empty Slot", JOptionPane.PLAIN_MESSAGE);
+					if (forLoading) {
+						loadGame(NAME);
 						return;
 					}
 
-					try {
-						loadGame(FINAL_I);
-					} catch (ClassNotFoundException e) {
-						// This should never happen
-					}
+					int result = JOptionPane.showConfirmDialog(null, "Overwrite save?", "Overwrite Save", JOptionPane.YES_NO_OPTION);
+					if (result == JOptionPane.YES_OPTION) saveGame(NAME);
 				}
 			});
+			menu.add(item);
+		}
+
+		if (end < saves.size()) {
+			final JMenu MORE = new JMenu("More");
+			final int FINAL_END = end;
+			MORE.setFont(NOTO_MONO);
+			MORE.addMenuListener(new MenuListener() {
+				@Override
+				public void menuSelected(MenuEvent e) {
+					if (MORE.getItemCount() == 0) addSaveItems(MORE, saves, FINAL_END, forLoading);
+				}
 
-			item.setText("Slot " + i + ": " + ((empty) ? " Has Game" : " Empty"));
+				@Override
+				public void menuDeselected(MenuEvent e) {
+				}
 
-			submenu.add(item);
+				@Override
+				public void menuCanceled(MenuEvent e) {
+				}
+			});
+			menu.add(MORE);
 		}
-		fileOptions.add(submenu);
 	}
 
-	private static int[] getAvailableSaveSlots() {
-		File[] possibleSaves = new File[4];
-		for (int i = 0; i < 4; ++i) {
-			possibleSaves[i] = new File(Paths.get(CONFIG_DIR, SAVE_DIR, i + ".txt").toString());
-		}
+	private static String describeSave(SaveInfo info) {
+		String str = info.getName() + "  (" + info.getNumRows() + "x" + info.getNumCols() + ", " + info.getNumBombs() + " bombs";
+		if (info.getProgress() != -1) str += ", " + info.getProgress() + "% done";
+		return str + ", " + SAVE_DATE_FORMAT.format(new Date(info.getLastModified())) + ")";
+	}
 
-		ArrayList<File> nonExistingSaves = new ArrayList<>();
-		for (int i = 0; i < possibleSaves.length; ++i) {
-			if (!possibleSaves[i].exists()) nonExistingSaves.add(possibleSaves[i]);
-		}
+	/**
+	 * Runs a save or load, the board and the menus can't be used until it is done
+	 *
+	 * @param WORKER   the save or load, its done() has to call setBusy(false)
+	 * @param PROGRESS shows the progress of the worker, and lets the user cancel it
+	 */
+	private void runInBackground(final SwingWorker<?, ?> WORKER, final ProgressMonitor PROGRESS) {
+		setBusy(true);
 
-		int[] availableSlots = new int[nonExistingSaves.size()];
-		for (int i = 0; i < availableSlots.length; ++i) {
-			try {
-				availableSlots[i] = Integer.parseInt(String.valueOf(nonExistingSaves.get(i).getName().charAt(0)));
-			} catch (NumberFormatException ex) {
+		WORKER.addPropertyChangeListener(new PropertyChangeListener() {
+			@Override
+			public void propertyChange(PropertyChangeEvent e) {
+				if ("progress".equals(e.getPropertyName())) {
+					PROGRESS.setProgress((Integer) e.getNewValue());
+				}
 
+				// Cancelling interrupts the worker, which stops the save or load
+				if (PROGRESS.isCanceled()) WORKER.cancel(true);
 			}
-		}
+		});
+		WORKER.execute();
+	}
 
+	private void setBusy(boolean busy) {
+		this.busy = busy;
 
-		return availableSlots;
+		for (int i = 0; i < menuBar.getMenuCount(); ++i) {
+			JMenu menu = menuBar.getMenu(i);
+			if (menu != null) menu.setEnabled(!busy);
+		}
+		setCursor((busy) ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
 	}
 
-	private void loadGame(int slot) throws ClassNotFoundException {
-		if (slot < 0 || slot > 3) return;
-		if (CONFIG_DIR == null) {
+	private void loadGame(String name) {
+		if (saveCatalog == null) {
 			JOptionPane.showMessageDialog(null, "Saving and loading is disabled", "Warning", JOptionPane.WARNING_MESSAGE);
 			return;
 		}
@@ -821,277 +969,148 @@ public class Board extends JFrame implements ActionListener {
 			if (windows[i] != this) windows[i].dispose();
 		}
 
-		File saveFile = new File(Paths.get(CONFIG_DIR, "minesweeperSaves", slot + ".txt").toString());
-
-		if (!saveFile.exists()) {
-			JOptionPane.showMessageDialog(null, "The file \"" + saveFile.getAbsolutePath() + "\"" + " does not exist", "Error", JOptionPane.ERROR_MESSAGE);
-			return;
-		}
-
-		ArrayList<String> save;
-
-		try {
-			FileReader fr = new FileReader(saveFile);
-			BufferedReader br = new BufferedReader(fr);
-
-			save = new ArrayList<>(br.readAllLines());
-
-			br.close();
-			fr.close();
-		} catch (IOException ex) {
-			JOptionPane.showMessageDialog(null, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-			return;
-		}
-
-		boolean isValid = true;
-		Square[][] newSquares = new Square[0][0];
-
-		int newNumRows = 0;
-		int newNumCols = 0;
-		int newNumBombs = 0;
-
-		try {
-			newNumRows = Integer.parseInt(save.get(0));
-			newNumCols = Integer.parseInt(save.get(1));
-			newNumBombs = Integer.parseInt(save.get(2));
+		final Path SAVE_FILE = saveCatalog.getSavePath(name);
+		final Path TEXT_SAVE_FILE = saveCatalog.getTextSavePath(name);
+		final MoveJournal JOURNAL = journal;
 
-			if (newNumRows <= 0 || newNumCols <= 0 || newNumBombs <= 0 || newNumBombs >= newNumCols * newNumRows) {
-				throw new Exception();
-			}
+		// Read on another thread so the window doesn't freeze, the game is only replaced once the save has been read
+		final ProgressMonitor PROGRESS = new ProgressMonitor(this, "Loading \"" + name + "\"", null, 0, 100);
+		runInBackground(new SwingWorker<LoadedGame, Void>() {
+			private volatile boolean read = false; // True once the save is read, the autosave is replaced after that
 
-			int expectedNumLines = 3 + newNumCols * newNumRows;
-			if (save.size() != expectedNumLines) {
-				throw new Exception();
+			@Override
+			protected LoadedGame doInBackground() throws Exception {
+				Minefield loaded = readSave();
+				read = true;
+				return prepareLoadedGame(loaded, JOURNAL);
 			}
 
-			newSquares = new Square[newNumRows][newNumCols];
-			for (int i = 3; i < expectedNumLines; ++i) {
-				String line = save.get(i);
-				if (line.isEmpty()) break;
-				Square square;
+			private Minefield readSave() throws Exception {
+				if (Files.exists(SAVE_FILE)) {
+					return SaveFile.read(SAVE_FILE, new ProgressListener() {
+						@Override
+						public void progress(long done, long total) {
+							setProgress((int) (done * 100 / total));
+						}
+					});
+				}
 
-				int squareNum;
-				boolean isFlagged = false;
-				boolean isRevealed = false;
+				// Saves from before the binary format are still loaded
+				if (!Files.exists(TEXT_SAVE_FILE)) {
+					throw new FileNotFoundException("The file \"" + SAVE_FILE.toAbsolutePath() + "\" does not exist");
+				}
+				try (BufferedReader br = Files.newBufferedReader(TEXT_SAVE_FILE)) {
+					return SaveFile.readText(br);
+				}
+			}
 
-				if (!isNumber(line)) {
-					// if the line is not a number, it must contain either r or f
-					if (!line.contains("r") && !line.contains("f")) throw new Exception();
+			@Override
+			protected void done() {
+				PROGRESS.close();
+				setBusy(false);
 
-					// Now, get the number portion
-					if (line.startsWith("-")) {
-						squareNum = -1;
-						line = line.substring(2);
+				try {
+					showLoadedGame(get());
+				} catch (CancellationException | InterruptedException ex) {
+					// Cancelled, keep playing the current game, if it was cancelled while the loaded game was being autosaved,
+					// the autosave has to go back to the current game
+					if (read) startJournal();
+				} catch (ExecutionException ex) {
+					if (ex.getCause() instanceof InvalidSaveException) {
+						JOptionPane.showMessageDialog(null, "Save file is invalid\n" + ex.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
 					} else {
-						// Since it can only be
-						squareNum = Integer.parseInt(String.valueOf(line.charAt(0)));
-						line = line.substring(1);
+						JOptionPane.showMessageDialog(null, ex.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
 					}
-
-					isRevealed = line.contains("r");
-					isFlagged = line.contains("f");
-
-					if (isFlagged && isRevealed) throw new Exception(); // A square can not be both flagged and revealed
-				} else {
-					squareNum = Integer.parseInt(line);
 				}
-
-				square = new Square(squareNum);
-				square.setIsFlagged(isFlagged);
-
-				if (isRevealed) square.reveal(); // This will also handle the BombException
-
-
-				if (squareNum < -1 || squareNum > 8) {
-					throw new Exception(); // the number is not valid
-				}
-
-				newSquares[(i - 3) / newNumCols][(i - 3) % newNumCols] = square;
 			}
-		} catch (Exception ex) {
-			isValid = false;
-		}
+		}, PROGRESS);
+	}
 
-		if (isValid) {
-			// Now, check to make sure for every square, the number of neighbor bombs match the number shown
-			for (int i = 0; i < newNumRows; ++i) {
-				for (int j = 0; j < newNumCols; ++j) {
-					if (newSquares[i][j].isBomb()) continue;
-
-					int numNeighborBombs = 0;
-
-					// There can be a maximum of 8 neighbors, test them all
-					// (i-1,j-1), (i-1, j ), (i-1,j+1)
-					// ( i ,j-1), ( i , j ), ( i ,j+1)
-					// (i+1,j-1), (i+1, j ), (i+1,j+1)
-					Point[] neighbors = new Point[]{
-							new Point(j - 1, i - 1), new Point(j, i - 1), new Point(j + 1, i - 1),
-							new Point(j - 1, i), new Point(j, i), new Point(j + 1, i),
-							new Point(j - 1, i + 1), new Point(j, i + 1), new Point(j + 1, i + 1)
-					};
-
-					for (int k = 0; k < neighbors.length; ++k) {
-						try {
-							if (newSquares[neighbors[k].y][neighbors[k].x].isBomb()) {
-								++numNeighborBombs;
-							}
-						} catch (Exception ex) {
-							// Ignore it, keep going
-						}
-					}
+	/**
+	 * A game that was loaded on another thread, with everything that takes long to set up for it, so the event thread only has to show it
+	 */
+	private static final class LoadedGame {
+		final Minefield minefield;
+		final HintEngine hints; // Has already worked out what it can from the cells that are revealed
+		final boolean autosaved; // False if the autosave couldn't be written, then autosaving has to be turned off
+
+		LoadedGame(Minefield minefield, HintEngine hints, boolean autosaved) {
+			this.minefield = minefield;
+			this.hints = hints;
+			this.autosaved = autosaved;
+		}
+	}
 
-					if (numNeighborBombs != newSquares[i][j].getNUMBER()) {
-						isValid = false;
-					}
-				}
+	/**
+	 * Sets up a game that was just loaded, this is called on the thread that loaded it, before the game is shown.
+	 * The hints look at the whole board once, and the first autosave of a game that isn't from a seed is the whole board,
+	 * either would freeze the window on a big board if it was done on the event thread
+	 *
+	 * @param minefield the game
+	 * @param journal   the autosave, null if autosaving is disabled
+	 * @return the game, ready to be shown
+	 */
+	private static LoadedGame prepareLoadedGame(Minefield minefield, MoveJournal journal) {
+		HintEngine hints = new HintEngine(minefield);
+
+		boolean autosaved = true;
+		if (journal != null) {
+			try {
+				journal.start(minefield);
+			} catch (IOException ex) {
+				System.err.println(ex);
+				autosaved = false;
 			}
 		}
+		return new LoadedGame(minefield, hints, autosaved);
+	}
 
-		if (!isValid) {
-			JOptionPane.showMessageDialog(null, "Save file is invalid", "Error", JOptionPane.ERROR_MESSAGE);
-			return;
+	private void showLoadedGame(LoadedGame loaded) {
+		if (!loaded.autosaved) {
+			discardJournal();
+			journal = null;
 		}
 
-		getContentPane().setPreferredSize(new Dimension(newNumCols * DEFAULT_SQUARE_LENGTH, DEFAULT_SQUARE_LENGTH * newNumRows + MENU_BAR_HEIGHT));
+		Minefield newMinefield = loaded.minefield;
+		int newNumRows = newMinefield.getNumRows();
+		int newNumCols = newMinefield.getNumCols();
+		int newNumBombs = newMinefield.getNumBombs();
+
+		getContentPane().setPreferredSize(getPreferredContentSize(newNumRows, newNumCols));
 		pack();
 
 
 		final int FINAL_NEW_NUM_BOMBS = newNumBombs;
 		final int FINAL_NEW_NUM_ROWS = newNumRows;
 		final int FINAL_NEW_NUM_COLS = newNumCols;
-		final Square[][] FINAL_NEW_SQUARES = newSquares;
+		final Minefield FINAL_NEW_MINEFIELD = newMinefield;
+		final HintEngine NEW_HINTS = loaded.hints;
 
 		firstClick = false;
 		hasX = false;
-		gameOver = false;
+		gameOver = true; // No moves until the loaded game is shown, the autosave is already the loaded game's
 		wonGame = false;
 
 
 		SwingUtilities.invokeLater(new Runnable() {
 			@Override
 			public void run() {
+				gameOver = false;
 				numBombs = FINAL_NEW_NUM_BOMBS;
 				numRows = FINAL_NEW_NUM_ROWS;
 				numCols = FINAL_NEW_NUM_COLS;
-				squares = FINAL_NEW_SQUARES;
-
-				// Now create the new field
-				field.removeAll(); // Clear the buttons
-				field.repaint();
-				field.revalidate(); // I have no idea why we need to do this, we just do
-				field.setLayout(new GridLayout(numRows, numCols)); // Reset the layout
-
-
-				for (int i = 0; i < numRows; ++i) {
-					for (int j = 0; j < numCols; ++j) {
-						squares[i][j].setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY));
-
-						// checkerboard pattern
-						if ((i + j) % 2 == 0 && !squares[i][j].getIsRevealed()) {
-							squares[i][j].setBackground(new Color(0x1B8300)); // darker green
-						} else if (!squares[i][j].getIsRevealed()) {
-							squares[i][j].setBackground(new Color(0x25B500)); // lighter green
-						}
-
-						squares[i][j].addActionListener(Board.this);
-
-						// For some stupid reason, actionPerformed doesn't get invoked when right click, so we have to manually do this
-						// Also we need to create final copies of i and j if we wish to use them in the anonymous class
-						final int FINAL_I = i;
-						final int FINAL_J = j;
-						squares[i][j].addMouseListener(new MouseAdapter() {
-							private final Color SQUARE_COLOR = squares[FINAL_I][FINAL_J].getBackground();
-
-							@Override
-							public void mouseClicked(MouseEvent e) {
-								if (gameOver) return;
-								Square s = (Square) e.getSource();
-								if (SwingUtilities.isRightMouseButton(e) && !s.getIsRevealed()) {
-									if (!s.getIsFlagged() && numBombs - numFlags > 0) {
-										try {
-											setSquareIcon(s, "icons/flag.png");
-
-											s.setIsFlagged(true);
-											++numFlags;
-											flagsPlacedLabel.setText("" + (numBombs - numFlags));
-										} catch (Exception ex) {
-											System.err.println(ex);
-										}
-									} else if (s.getIsFlagged()) {
-										s.setIcon(null);
-										s.setIsFlagged(false);
-										--numFlags;
-										flagsPlacedLabel.setText("" + (numBombs - numFlags));
-									}
-								} else if (!SwingUtilities.isLeftMouseButton(e) && s.getIsRevealed()) {
-									// If it is not the left mouse button, but the square is already revealed,
-									// auto-reveal the neighbors, we can do this by just calling our actionPerformed
-									// We excluded left mouse button because those events are picked up by actionPerformed
-									Board.this.actionPerformed(new ActionEvent(e.getSource(), 0, "command"));
-								}
-							}
-
-							@Override
-							public void mouseEntered(MouseEvent mouseEvent) {
-								if (mouseEvent.getSource() instanceof Square s) {
-									s.setBackground(new Color(0xC9C9C9));
-								}
-							}
-
-							@Override
-							public void mouseExited(MouseEvent mouseEvent) {
-								if (mouseEvent.getSource() instanceof Square s) {
-									if (!s.getIsRevealed()) {
-										s.setBackground(SQUARE_COLOR);
-									} else {
-										s.setBackground(new Color(0xFFBC5B)); // Show the revealed color if the square is revealed
-									}
-								}
-							}
-						});
-
-						squares[i][j].setFont(NOTO_MONO_BOLD);
-						squares[i][j].setFocusPainted(false); // Do not outline the text when it is focused
-						field.add(squares[i][j]);
-					}
-				}
-
-				SwingUtilities.invokeLater(new Runnable() {
-					@Override
-					public void run() {
-						for (int i = 0; i < numRows; ++i) {
-							for (int j = 0; j < numCols; ++j) {
-								if (squares[i][j].getIsFlagged()) {
-									try {
-										setSquareIcon(squares[i][j], "icons/flag.png");
-									} catch (IOException e) {
-
-									}
-								}
-							}
-						}
-					}
-				});
+				minefield = FINAL_NEW_MINEFIELD;
+				hints = NEW_HINTS;
+				updateFlagsPlacedLabel();
+
+				// Now show the new field
+				field.setMinefield(minefield, -1);
+				startReplay();
+				updateProbabilities();
 			}
 		});
 	}
 
-	private boolean isNumber(final String STR) {
-		int i = 0;
-
-		if (STR.startsWith("-")) i = 1;
-
-		try {
-			for (; i < STR.length(); ++i) {
-				if (!Character.isDigit(STR.charAt(i))) return false;
-			}
-		} catch (ArrayIndexOutOfBoundsException ex) {
-			// This will happen if STR is "-"
-			return false;
-		}
-		return true;
-	}
-
 	@Override
 	public void actionPerformed(ActionEvent e) {
 		if (e.getSource() instanceof JMenuItem mi) {
@@ -1117,7 +1136,13 @@ public class Board extends JFrame implements ActionListener {
 			if (menuItemText == null || menuText == null) return;
 
 			if (menuText.equals("Game")) {
-				if (menuItemText.equals("Change Board Size")) {
+				if (menuItemText.equals("Hint")) {
+					showHint();
+				} else if (menuItemText.equals("Show Probabilities")) {
+					updateProbabilities();
+				} else if (menuItemText.equals("Seed")) {
+					showSeedDialog();
+				} else if (menuItemText.equals("Change Board Size")) {
 					JFrame boardSizeFrame = new JFrame("Board Size");
 					boardSizeFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
 
@@ -1188,12 +1213,16 @@ public class Board extends JFrame implements ActionListener {
 									throw new Exception("A positive integer is required");
 								}
 
-								if (bombs > numRows * numCols) {
+								if (rows > Minefield.MAX_ROWS || cols > Minefield.MAX_COLS) {
+									throw new Exception("The board can be at most " + Minefield.MAX_ROWS + " rows by " + Minefield.MAX_COLS + " columns");
+								}
+
+								if (bombs > rows * cols) {
 									throw new Exception("The number of bombs can not be greater than the number of cells");
 								}
 
 
-								getContentPane().setPreferredSize(new Dimension(cols * DEFAULT_SQUARE_LENGTH, DEFAULT_SQUARE_LENGTH * rows + MENU_BAR_HEIGHT));
+								getContentPane().setPreferredSize(getPreferredContentSize(rows, cols));
 								pack();
 
 								// invokeLater will wait for all the events to be processed before executing doRun.run()
@@ -1251,101 +1280,68 @@ public class Board extends JFrame implements ActionListener {
 			} else if (menuText.equals("File")) {
 				if (menuItemText.equals("New")) {
 					newGame();
+				} else if (menuItemText.equals("Watch Replay...")) {
+					chooseReplay();
 				}
 			}
-		} else if (e.getSource() instanceof Square s && !gameOver) {
-			// If this is the first click, ensure the user only clicks on the "X", assuming that there is an X
-			// Since there may be no 0s, we can only enable this limitation if there is an x on the board
-			if (firstClick && hasX && !s.getText().equals("<html>&times;</html>")) {
-				return;
-			}
+		}
+	}
 
-			boolean revealedSquare = false;
-			firstClick = false;
-			if (!s.getIsFlagged() && !s.getIsRevealed()) {
-				try {
-					s.reveal();
-					revealedSquare = true;
-				} catch (BombException ex) {
-					endGame(false);
-					return;
-				}
+	@Override
+	public void squareClicked(MouseEvent e, int i, int j) {
+		if (gameOver || busy) return;
+
+		if (SwingUtilities.isLeftMouseButton(e)) {
+			clickSquare(i, j);
+		} else if (SwingUtilities.isRightMouseButton(e) && !minefield.isRevealed(i, j)) {
+			if (minefield.toggleFlag(i, j)) {
+				recordMove((minefield.isFlagged(i, j)) ? MoveList.FLAG : MoveList.UNFLAG, i, j);
+				field.setHintCell(-1, false);
+				field.repaintChangedCells();
+				updateFlagsPlacedLabel();
 			}
+		} else if (minefield.isRevealed(i, j)) {
+			// If it is not the left mouse button, but the square is already revealed,
+			// auto-reveal the neighbors, clickSquare does this for revealed squares
+			clickSquare(i, j);
+		}
+	}
 
-			// Reveal all connected zeros when a zero is clicked
-			if (s.getNUMBER() == 0 && s.getIsRevealed()) {
-				revealZeros();
-			} else if (s.getIsRevealed() && !revealedSquare) {
-				// If we click on a revealed square that was not a zero, and this square was not revealed this turn,
-				// check if the square is satisfied, if it is, then reveal all the non-flagged neighbors
-				int num = s.getNUMBER();
-				// There can be a maximum of 8 neighbors, test them all
-				// (i-1,j-1), (i-1, j ), (i-1,j+1)
-				// ( i ,j-1), ( i , j ), ( i ,j+1)
-				// (i+1,j-1), (i+1, j ), (i+1,j+1)
-
-				// Find our i and j values for the current square
-				int i, j = 0;
-				outer:
-				for (i = 0; i < numRows; ++i) {
-					for (j = 0; j < numCols; ++j) {
-						if (squares[i][j] == s) {
-							break outer;
-						}
-					}
-				}
-
-				Point[] neighbors = new Point[]{
-						new Point(j - 1, i - 1), new Point(j, i - 1), new Point(j + 1, i - 1),
-						new Point(j - 1, i), new Point(j, i), new Point(j + 1, i),
-						new Point(j - 1, i + 1), new Point(j, i + 1), new Point(j + 1, i + 1)
-				};
-
-				for (int k = 0; k < neighbors.length; ++k) {
-					try {
-						Square square = squares[neighbors[k].y][neighbors[k].x];
-						if (square.getIsFlagged()) {
-							--num;
-						}
-					} catch (IndexOutOfBoundsException ex) {
-						// Ignore it, keep going
-					}
-				}
-
-				if (num <= 0) {
-					// The square is satisfied
-					for (int k = 0; k < neighbors.length; ++k) {
-						try {
-							Square square = squares[neighbors[k].y][neighbors[k].x];
-							if (!square.getIsFlagged()) {
-								square.reveal();
-							}
-						} catch (IndexOutOfBoundsException ex) {
-							// Ignore it, keep going
-						} catch (BombException ex) {
-							endGame(false);
-							return;
-						}
-					}
-				}
+	private void clickSquare(int i, int j) {
+		// If this is the first click, ensure the user only clicks on the "X", assuming that there is an X
+		// Since there may be no 0s, we can only enable this limitation if there is an x on the board
+		if (firstClick && hasX && minefield.getGrid().index(i, j) != minefield.getStartCell()) {
+			return;
+		}
 
-				// Reveal zeros in case we revealed some zeros, we need to reveal all the zeros connected to the revealed zeros
-				revealZeros();
+		firstClick = false;
+		byte type = (minefield.isRevealed(i, j)) ? MoveList.CHORD : MoveList.REVEAL;
+		try {
+			if (!minefield.isFlagged(i, j) && !minefield.isRevealed(i, j)) {
+				// Revealing a zero will also reveal all the connected zeros
+				if (minefield.reveal(i, j)) recordMove(MoveList.REVEAL, i, j);
+			} else if (minefield.isRevealed(i, j)) {
+				// If we click on a square that was already revealed, check if the square is satisfied,
+				// if it is, then reveal all the non-flagged neighbors
+				if (minefield.chord(i, j)) recordMove(MoveList.CHORD, i, j);
 			}
+		} catch (BombException ex) {
+			// The move that lost never gets to recordMove, but the replay needs it
+			if (replay != null) replay.add(type, i, j, getGameTime());
+			endGame(false);
+			return;
+		}
+		field.repaintChangedCells(); // Only the squares this click changed
+		updateFlagsPlacedLabel();
+		if (minefield.getNumChangedCells() > 0) {
+			hints.update(); // Only looks at the squares this click changed, and the numbers around them
+			field.setHintCell(-1, false);
+			updateProbabilities();
+		}
 
-
-			// Now we need to determine if we won the game by checking if all the non-bombs have been clicked
-			int numSquares = numRows * numCols - numBombs;
-			for (int i = 0; i < numRows; ++i) {
-				for (int j = 0; j < numCols; ++j) {
-					if (squares[i][j].getIsRevealed()) {
-						--numSquares;
-					}
-				}
-			}
-			if (numSquares == 0) {
-				endGame(true);
-			}
+		// Now we need to determine if we won the game, the minefield counts the revealed squares as they are revealed
+		if (minefield.isWon()) {
+			endGame(true);
 		}
 	}
 }
@@ -0,0 +1,124 @@
+package gui;
+
+import engine.Grid;
+
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import java.awt.Point;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+
+/**
+ * The one mouse listener for a FieldView, it works out which square every event is on,
+ * and handles clicking, hovering, panning and zooming for the whole field
+ * <p>
+ * Hovering only compares grid indices and repaints the two squares that changed, so moving the mouse doesn't allocate anything
+ */
+public class FieldInputHandler extends MouseAdapter {
+	private static final int PAN_THRESHOLD = 4; // How far the mouse has to be dragged before it counts as panning
+
+	private final FieldView field;
+	private final SquareListener listener;
+
+	private int pressedCell = -1; // Like a button, a square is only clicked if the mouse is released on the same square
+	private int hoverCell = -1;
+
+	// Panning is done in screen coordinates, since the field moves while it is panned
+	private boolean panning = false;
+	private boolean panned = false;
+	private int panStartX, panStartY;
+	private int viewStartX, viewStartY;
+
+	/**
+	 * Constructor, adds this as the mouse, motion and wheel listener of the field
+	 *
+	 * @param field    the field to handle the mouse for
+	 * @param listener what gets told about clicked squares
+	 */
+	public FieldInputHandler(FieldView field, SquareListener listener) {
+		this.field = field;
+		this.listener = listener;
+
+		field.addMouseListener(this);
+		field.addMouseMotionListener(this);
+		field.addMouseWheelListener(this);
+	}
+
+	@Override
+	public void mousePressed(MouseEvent e) {
+		pressedCell = field.cellAt(e.getX(), e.getY());
+
+		JViewport viewport = field.getViewport();
+		if (SwingUtilities.isMiddleMouseButton(e) && viewport != null) {
+			Point viewPosition = viewport.getViewPosition();
+			panning = true;
+			panned = false;
+			panStartX = e.getXOnScreen();
+			panStartY = e.getYOnScreen();
+			viewStartX = viewPosition.x;
+			viewStartY = viewPosition.y;
+		}
+	}
+
+	@Override
+	public void mouseReleased(MouseEvent e) {
+		int cell = field.cellAt(e.getX(), e.getY());
+		boolean wasPan = panned;
+		panning = false;
+		panned = false;
+
+		if (cell != -1 && cell == pressedCell && !wasPan) {
+			Grid grid = field.getMinefield().getGrid();
+			listener.squareClicked(e, grid.row(cell), grid.col(cell));
+		}
+		pressedCell = -1;
+	}
+
+	@Override
+	public void mouseMoved(MouseEvent e) {
+		setHoverCell(field.cellAt(e.getX(), e.getY()));
+	}
+
+	@Override
+	public void mouseDragged(MouseEvent e) {
+		JViewport viewport = field.getViewport();
+		if (panning && viewport != null) {
+			int dx = e.getXOnScreen() - panStartX;
+			int dy = e.getYOnScreen() - panStartY;
+			if (panned || Math.abs(dx) >= PAN_THRESHOLD || Math.abs(dy) >= PAN_THRESHOLD) {
+				panned = true;
+				field.setViewPosition(viewport, viewStartX - dx, viewStartY - dy);
+			}
+		}
+
+		setHoverCell(field.cellAt(e.getX(), e.getY()));
+	}
+
+	@Override
+	public void mouseExited(MouseEvent e) {
+		setHoverCell(-1);
+	}
+
+	@Override
+	public void mouseWheelMoved(MouseWheelEvent e) {
+		if (e.isControlDown()) {
+			field.zoom(-e.getWheelRotation(), e.getPoint());
+			setHoverCell(field.cellAt(e.getX(), e.getY()));
+			return;
+		}
+
+		// Having a wheel listener stops the scroll pane from getting the event, so pass it on for normal scrolling
+		JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, field);
+		if (scrollPane != null) {
+			scrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(field, e, scrollPane));
+		}
+	}
+
+	private void setHoverCell(int cell) {
+		if (cell == hoverCell) return;
+		hoverCell = cell;
+		field.setHoverCell(cell);
+	}
+}
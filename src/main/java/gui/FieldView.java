@@ -0,0 +1,501 @@
+package gui;
+
+import engine.Grid;
+import engine.MineProbabilities;
+import engine.Minefield;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+
+/**
+ * Draws a minefield, every square is painted by this one component instead of each square being its own button
+ * <p>
+ * The field is meant to be put in a JScrollPane, the squares fill the viewport like a GridLayout would,
+ * but they never get smaller than the minimum square size, past that the field scrolls instead.
+ * Only the squares in the visible part of the field are ever painted, so the size of the board doesn't matter.
+ * Zooming changes the minimum square size, the mouse is handled by a FieldInputHandler
+ */
+public class FieldView extends JComponent implements Scrollable {
+	public static final Map<Integer, Color> NUMBER_TO_COLOR_MAP = Map.ofEntries(
+			Map.entry(1, new Color(0x227FF2)),
+			Map.entry(2, new Color(0x067A09)),
+			Map.entry(3, new Color(0xB90000)),
+			Map.entry(4, new Color(0x124078)),
+			Map.entry(5, new Color(0x850505)),
+			Map.entry(6, new Color(0x148CAD)),
+			Map.entry(7, new Color(0x000000)),
+			Map.entry(8, new Color(0xA5A5A5))
+	);
+
+	public static final Color DARK_SQUARE_COLOR = new Color(0x1B8300); // darker green
+	public static final Color LIGHT_SQUARE_COLOR = new Color(0x25B500); // lighter green
+	public static final Color REVEALED_SQUARE_COLOR = new Color(0xFFBC5B);
+	public static final Color HOVER_SQUARE_COLOR = new Color(0xC9C9C9);
+	public static final Color HINT_SAFE_COLOR = new Color(0x7FD3FF); // light blue
+	public static final Color HINT_BOMB_COLOR = new Color(0xFF7F7F); // light red
+
+	// PROBABILITY_COLORS[p] is drawn over a hidden square with a p% chance of being a bomb, from blue at 0% to red at 100%
+	private static final Color[] PROBABILITY_COLORS = new Color[101];
+
+	static {
+		for (int p = 0; p < PROBABILITY_COLORS.length; ++p) {
+			PROBABILITY_COLORS[p] = new Color(255 * p / 100, 0, 255 * (100 - p) / 100, 150);
+		}
+	}
+
+	private static final IconCache ICON_CACHE = new IconCache();
+	private static final int RESIZE_SETTLE_DELAY = 150; // Milliseconds without a resize before the icons are rescaled
+
+	public static final int DEFAULT_MIN_CELL_SIZE = 20;
+	private static final int SMALLEST_MIN_CELL_SIZE = 4;
+	private static final int LARGEST_MIN_CELL_SIZE = 200;
+	private static final double ZOOM_STEP = 1.25; // How much one notch of the scroll wheel zooms
+	private static final int FULL_FONT_CELL_HEIGHT = 40; // Squares shorter than this get a smaller font
+
+	private Minefield minefield;
+	private int xCell = -1; // The grid index of the square with the "X" on it, -1 if there is none
+	private int hoverCell = -1; // The grid index of the square under the mouse, -1 if there is none
+	private int hintCell = -1; // The grid index of the square the last hint was about, -1 if there is none
+	private boolean hintIsBomb = false;
+	private MineProbabilities probabilities = null; // Drawn over the hidden squares, null to not draw them
+
+	// While the squares are being resized, the icons scaled for the last settled size are stretched instead of rescaled
+	private int settledCellWidth = 0;
+	private int settledCellHeight = 0;
+	private final Timer resizeTimer;
+
+	private int minCellSize = DEFAULT_MIN_CELL_SIZE;
+	private Font cellFont; // The font for the current square height, only derived again when the height changes
+	private int cellFontHeight = -1;
+
+	/**
+	 * Constructor
+	 */
+	public FieldView() {
+		setFont(Board.NOTO_MONO_BOLD);
+		setOpaque(true);
+
+		// Restarted by every resize, so a burst of resizes only settles once, after the last one
+		resizeTimer = new Timer(RESIZE_SETTLE_DELAY, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				settleCellSize();
+			}
+		});
+		resizeTimer.setRepeats(false);
+
+		addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentResized(ComponentEvent e) {
+				if (minefield == null) return;
+				if (getCellWidth() == settledCellWidth && getCellHeight() == settledCellHeight) {
+					resizeTimer.stop(); // Back to the settled size, nothing to rescale
+					return;
+				}
+
+				if (settledCellWidth == 0) {
+					settleCellSize(); // There is nothing to stretch yet
+				} else {
+					resizeTimer.restart();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the viewport showing this field, null if it is not in one
+	 */
+	JViewport getViewport() {
+		return (getParent() instanceof JViewport viewport) ? viewport : null;
+	}
+
+	/**
+	 * Scrolls the viewport, without going past the edges of the field
+	 *
+	 * @param viewport the viewport showing this field
+	 * @param x        the x coordinate of the field to show at the left edge of the viewport
+	 * @param y        the y coordinate of the field to show at the top edge of the viewport
+	 */
+	void setViewPosition(JViewport viewport, int x, int y) {
+		// Don't scroll past the edges of the field
+		x = Math.max(Math.min(x, getWidth() - viewport.getWidth()), 0);
+		y = Math.max(Math.min(y, getHeight() - viewport.getHeight()), 0);
+		viewport.setViewPosition(new Point(x, y));
+	}
+
+	/**
+	 * Zooms in or out, keeping the point under the mouse in the same place
+	 *
+	 * @param steps how many steps to zoom in, negative to zoom out
+	 * @param point the point to zoom around, relative to this component
+	 */
+	public void zoom(int steps, Point point) {
+		if (minefield == null || steps == 0) return;
+
+		// Start from the current size of the squares, not the minimum, so zooming in always makes them bigger
+		int cellSize = (steps > 0) ? Math.max(getCellWidth(), getCellHeight()) : Math.min(getCellWidth(), getCellHeight());
+		int newMinCellSize = (int) Math.round(cellSize * Math.pow(ZOOM_STEP, steps));
+		if (newMinCellSize == cellSize) newMinCellSize += Integer.signum(steps);
+		newMinCellSize = Math.max(Math.min(newMinCellSize, LARGEST_MIN_CELL_SIZE), SMALLEST_MIN_CELL_SIZE);
+		if (newMinCellSize == minCellSize) return;
+
+		JViewport viewport = getViewport();
+		if (viewport == null) {
+			minCellSize = newMinCellSize;
+			revalidate();
+			return;
+		}
+
+		// Where the point is, as a fraction of the field, and where it is in the viewport
+		double fractionX = point.getX() / getWidth();
+		double fractionY = point.getY() / getHeight();
+		Point viewPosition = viewport.getViewPosition();
+		int viewportX = point.x - viewPosition.x;
+		int viewportY = point.y - viewPosition.y;
+
+		minCellSize = newMinCellSize;
+
+		// Resize right away, instead of waiting for the layout, so the view position can be set for the new size
+		Dimension preferredSize = getPreferredSize();
+		setSize(Math.max(preferredSize.width, viewport.getWidth()), Math.max(preferredSize.height, viewport.getHeight()));
+		setViewPosition(viewport, (int) (fractionX * getWidth()) - viewportX, (int) (fractionY * getHeight()) - viewportY);
+		revalidate();
+		repaint();
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		if (isPreferredSizeSet() || minefield == null) return super.getPreferredSize();
+		return new Dimension(minefield.getNumCols() * minCellSize, minefield.getNumRows() * minCellSize);
+	}
+
+	@Override
+	public Dimension getPreferredScrollableViewportSize() {
+		return getPreferredSize();
+	}
+
+	@Override
+	public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+		if (minefield == null) return 1;
+		return (orientation == SwingConstants.HORIZONTAL) ? getCellWidth() : getCellHeight();
+	}
+
+	@Override
+	public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+		return (orientation == SwingConstants.HORIZONTAL) ? visibleRect.width : visibleRect.height;
+	}
+
+	@Override
+	public boolean getScrollableTracksViewportWidth() {
+		// Stretch to fill the viewport, unless that would make the squares smaller than the minimum
+		return getParent() instanceof JViewport viewport && viewport.getWidth() >= getPreferredSize().width;
+	}
+
+	@Override
+	public boolean getScrollableTracksViewportHeight() {
+		return getParent() instanceof JViewport viewport && viewport.getHeight() >= getPreferredSize().height;
+	}
+
+	private void settleCellSize() {
+		if (minefield == null) return;
+
+		int cellWidth = getCellWidth();
+		int cellHeight = getCellHeight();
+		if (cellWidth == settledCellWidth && cellHeight == settledCellHeight) return;
+
+		settledCellWidth = cellWidth;
+		settledCellHeight = cellHeight;
+		repaint();
+	}
+
+	/**
+	 * Sets the minefield to draw, and repaints everything
+	 *
+	 * @param minefield the new minefield
+	 * @param xCell     the grid index of the square to put an "X" on, -1 for no "X"
+	 */
+	public void setMinefield(Minefield minefield, int xCell) {
+		this.minefield = minefield;
+		this.xCell = xCell;
+		this.hoverCell = -1;
+		this.hintCell = -1;
+		this.probabilities = null;
+
+		// The squares are probably a different size now, there is no reason to wait before rescaling the icons
+		resizeTimer.stop();
+		this.settledCellWidth = 0;
+		this.settledCellHeight = 0;
+		settleCellSize();
+		revalidate(); // The preferred size depends on the number of rows and columns
+		repaint();
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @return the minefield being drawn, null if there is none
+	 */
+	public Minefield getMinefield() {
+		return this.minefield;
+	}
+
+	/**
+	 * Highlights the square under the mouse
+	 *
+	 * @param index the grid index of the square, -1 to not highlight anything
+	 */
+	public void setHoverCell(int index) {
+		if (index == hoverCell) return;
+
+		repaintCell(hoverCell);
+		hoverCell = index;
+		repaintCell(hoverCell);
+	}
+
+	/**
+	 * Highlights the square a hint is about, and scrolls to it
+	 *
+	 * @param index  the grid index of the square, -1 to not highlight anything
+	 * @param isBomb true if the square is a bomb, false if it is safe
+	 */
+	public void setHintCell(int index, boolean isBomb) {
+		repaintCell(hintCell);
+		hintCell = index;
+		hintIsBomb = isBomb;
+		repaintCell(hintCell);
+
+		if (index != -1) {
+			Grid grid = minefield.getGrid();
+			scrollRectToVisible(getCellBounds(grid.row(index), grid.col(index)));
+		}
+	}
+
+	/**
+	 * Colors every hidden square by its chance of being a bomb
+	 *
+	 * @param probabilities the chances for the minefield being drawn, null to stop showing them
+	 */
+	public void setProbabilities(MineProbabilities probabilities) {
+		if (probabilities == null && this.probabilities == null) return;
+
+		this.probabilities = probabilities;
+		repaint(); // Only the part that is showing is painted
+	}
+
+	/**
+	 * Repaints the squares changed by the last move on the minefield, the changed squares are merged into the one rectangle that covers all of them,
+	 * a move only changes squares that are connected, so the rectangle is not much bigger than the squares
+	 */
+	public void repaintChangedCells() {
+		if (minefield == null || minefield.getNumChangedCells() == 0) return;
+
+		Grid grid = minefield.getGrid();
+		int minRow = Integer.MAX_VALUE, minCol = Integer.MAX_VALUE;
+		int maxRow = -1, maxCol = -1;
+		for (int i = 0; i < minefield.getNumChangedCells(); ++i) {
+			int index = minefield.getChangedCell(i);
+			int row = grid.row(index);
+			int col = grid.col(index);
+			minRow = Math.min(minRow, row);
+			maxRow = Math.max(maxRow, row);
+			minCol = Math.min(minCol, col);
+			maxCol = Math.max(maxCol, col);
+		}
+
+		int cellWidth = getCellWidth();
+		int cellHeight = getCellHeight();
+		repaint(getOffsetX() + minCol * cellWidth, getOffsetY() + minRow * cellHeight,
+				(maxCol - minCol + 1) * cellWidth, (maxRow - minRow + 1) * cellHeight);
+	}
+
+	private void repaintCell(int index) {
+		if (index == -1 || minefield == null) return;
+
+		Grid grid = minefield.getGrid();
+		int cellWidth = getCellWidth();
+		int cellHeight = getCellHeight();
+		repaint(getOffsetX() + grid.col(index) * cellWidth, getOffsetY() + grid.row(index) * cellHeight, cellWidth, cellHeight);
+	}
+
+	private int getCellWidth() {
+		return Math.max(getWidth() / minefield.getNumCols(), 1);
+	}
+
+	private int getCellHeight() {
+		return Math.max(getHeight() / minefield.getNumRows(), 1);
+	}
+
+	// Like a GridLayout, the leftover space is split evenly around the squares
+	private int getOffsetX() {
+		return Math.max((getWidth() - getCellWidth() * minefield.getNumCols()) / 2, 0);
+	}
+
+	private int getOffsetY() {
+		return Math.max((getHeight() - getCellHeight() * minefield.getNumRows()) / 2, 0);
+	}
+
+	/**
+	 * Finds the square at a point
+	 *
+	 * @param x the x coordinate of the point, relative to this component
+	 * @param y the y coordinate of the point, relative to this component
+	 * @return the grid index of the square, -1 if there is no square at that point
+	 */
+	public int cellAt(int x, int y) {
+		if (minefield == null) return -1;
+
+		x -= getOffsetX();
+		y -= getOffsetY();
+		if (x < 0 || y < 0) return -1;
+
+		int col = x / getCellWidth();
+		int row = y / getCellHeight();
+		if (row >= minefield.getNumRows() || col >= minefield.getNumCols()) return -1;
+
+		return minefield.getGrid().index(row, col);
+	}
+
+	/**
+	 * Self-explanatory
+	 *
+	 * @param row the row of the square
+	 * @param col the column of the square
+	 * @return the area the square is drawn in, relative to this component
+	 */
+	public Rectangle getCellBounds(int row, int col) {
+		int cellWidth = getCellWidth();
+		int cellHeight = getCellHeight();
+		return new Rectangle(getOffsetX() + col * cellWidth, getOffsetY() + row * cellHeight, cellWidth, cellHeight);
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		Rectangle bounds = g.getClipBounds();
+		if (bounds == null) bounds = getVisibleRect();
+		g.setColor(getParent() != null ? getParent().getBackground() : getBackground());
+		g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+		if (minefield == null) return;
+
+		Grid grid = minefield.getGrid();
+		int cellWidth = getCellWidth();
+		int cellHeight = getCellHeight();
+		int offsetX = getOffsetX();
+		int offsetY = getOffsetY();
+
+		// Only paint the squares that intersect the area being repainted, in a scroll pane that is at most the visible part
+		Rectangle clip = bounds;
+
+		int firstRow = Math.max((clip.y - offsetY) / cellHeight, 0);
+		int lastRow = Math.min((clip.y + clip.height - offsetY) / cellHeight, minefield.getNumRows() - 1);
+		int firstCol = Math.max((clip.x - offsetX) / cellWidth, 0);
+		int lastCol = Math.min((clip.x + clip.width - offsetX) / cellWidth, minefield.getNumCols() - 1);
+
+		if (g instanceof Graphics2D g2) {
+			g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		}
+		Font font = getCellFont(cellHeight);
+		FontMetrics metrics = g.getFontMetrics(font);
+		g.setFont(font);
+
+		// Every square is the same size, so the icons only need to be looked up once
+		// They are looked up for the settled size, if the squares are still being resized they will be stretched
+		BufferedImage flagIcon = ICON_CACHE.get(IconCache.FLAG, settledCellWidth, settledCellHeight, getGraphicsConfiguration());
+		BufferedImage bombIcon = (minefield.isLost()) ? ICON_CACHE.get(IconCache.BOMB, settledCellWidth, settledCellHeight, getGraphicsConfiguration()) : null;
+
+		for (int i = firstRow; i <= lastRow; ++i) {
+			for (int j = firstCol; j <= lastCol; ++j) {
+				paintCell(g, metrics, flagIcon, bombIcon, grid.index(i, j), i, j, offsetX + j * cellWidth, offsetY + i * cellHeight, cellWidth, cellHeight);
+			}
+		}
+	}
+
+	private Font getCellFont(int cellHeight) {
+		if (cellHeight >= FULL_FONT_CELL_HEIGHT) return getFont();
+
+		if (cellHeight != cellFontHeight) {
+			// Shrink the font by as much as the square is smaller than the full font square
+			cellFont = getFont().deriveFont(getFont().getSize2D() * cellHeight / FULL_FONT_CELL_HEIGHT);
+			cellFontHeight = cellHeight;
+		}
+		return cellFont;
+	}
+
+	private void paintCell(Graphics g, FontMetrics metrics, BufferedImage flagIcon, BufferedImage bombIcon, int index, int row, int col, int x, int y, int width, int height) {
+		boolean lost = minefield.isLost();
+		boolean isBomb = minefield.isBomb(row, col);
+		boolean isFlagged = minefield.isFlagged(row, col);
+		// When the game is lost, every square that is not a bomb is shown
+		boolean showRevealed = minefield.isRevealed(row, col) || (lost && !isBomb);
+		int number = minefield.getNumber(row, col);
+
+		// The square under the mouse is always highlighted
+		if (index == hoverCell) {
+			g.setColor(HOVER_SQUARE_COLOR);
+		} else if (index == hintCell && !showRevealed) {
+			g.setColor((hintIsBomb) ? HINT_BOMB_COLOR : HINT_SAFE_COLOR);
+		} else if (showRevealed) {
+			g.setColor(REVEALED_SQUARE_COLOR);
+		} else if ((row + col) % 2 == 0) {
+			// checkerboard pattern
+			g.setColor(DARK_SQUARE_COLOR);
+		} else {
+			g.setColor(LIGHT_SQUARE_COLOR);
+		}
+		g.fillRect(x, y, width, height);
+
+		if (probabilities != null && !showRevealed && index != hoverCell && index != hintCell) {
+			g.setColor(PROBABILITY_COLORS[(int) Math.round(probabilities.getProbability(index) * 100)]);
+			g.fillRect(x, y, width, height);
+		}
+
+		g.setColor(Color.DARK_GRAY);
+		g.drawRect(x, y, width - 1, height - 1);
+
+		if (lost && isBomb) {
+			drawIcon(g, bombIcon, x, y, width, height);
+		} else if (lost && isFlagged) {
+			// Underline squares that were flagged, but were not bombs
+			g.setColor(NUMBER_TO_COLOR_MAP.getOrDefault(number, Color.BLACK));
+			int textX = drawCenteredString(g, metrics, "" + number, x, y, width, height);
+			int lineY = y + (height - metrics.getHeight()) / 2 + metrics.getAscent() + 2;
+			g.drawLine(textX, lineY, textX + metrics.stringWidth("" + number), lineY);
+		} else if (isFlagged) {
+			drawIcon(g, flagIcon, x, y, width, height);
+		} else if (showRevealed) {
+			if (number != 0) {
+				g.setColor(NUMBER_TO_COLOR_MAP.get(number));
+				drawCenteredString(g, metrics, "" + number, x, y, width, height);
+			}
+		} else if (index == xCell) {
+			g.setColor(Color.DARK_GRAY);
+			drawCenteredString(g, metrics, "\u00D7", x, y, width, height);
+		}
+	}
+
+	private static int drawCenteredString(Graphics g, FontMetrics metrics, String str, int x, int y, int width, int height) {
+		int textX = x + (width - metrics.stringWidth(str)) / 2;
+		int textY = y + (height - metrics.getHeight()) / 2 + metrics.getAscent();
+		g.drawString(str, textX, textY);
+		return textX;
+	}
+
+	private void drawIcon(Graphics g, BufferedImage icon, int x, int y, int width, int height) {
+		if (icon == null) return; // The square is too small for an icon
+
+		if (width == settledCellWidth && height == settledCellHeight) {
+			// The icon is already the right size, it only needs to be centered
+			g.drawImage(icon, x + (width - icon.getWidth()) / 2, y + (height - icon.getHeight()) / 2, null);
+		} else {
+			// Still resizing, stretch the icon by as much as the square has been stretched
+			int iconWidth = icon.getWidth() * width / settledCellWidth;
+			int iconHeight = icon.getHeight() * height / settledCellHeight;
+			g.drawImage(icon, x + (width - iconWidth) / 2, y + (height - iconHeight) / 2, iconWidth, iconHeight, null);
+		}
+	}
+}
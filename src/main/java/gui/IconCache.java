@@ -0,0 +1,115 @@
+package gui;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decodes each icon once, and keeps the icons already scaled to fit the squares they were last drawn on
+ * <p>
+ * Only a few scaled icons are kept, the least recently used ones are thrown away,
+ * so resizing the window many times doesn't keep every size around forever.
+ * This is not thread safe, it is only meant to be used while painting on the Event Dispatch Thread
+ */
+public class IconCache {
+	public static final String FLAG = "icons/flag.png";
+	public static final String BOMB = "icons/bomb.png";
+
+	private static final int MAX_SCALED_ICONS = 16;
+	private static final int PAD = 5; // How much smaller than the square the icon is
+
+	private final ArrayList<BufferedImage> sources = new ArrayList<>(); // The index of a source is used in the scaled icon keys
+	private final Map<String, Integer> pathToIndex = new HashMap<>();
+
+	private final LinkedHashMap<Long, BufferedImage> scaledIcons = new LinkedHashMap<>(MAX_SCALED_ICONS, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+			return size() > MAX_SCALED_ICONS;
+		}
+	};
+
+	/**
+	 * Gets an icon scaled to fit in a square, keeping its aspect ratio, with a slight pad
+	 *
+	 * @param path          the classpath location of the icon
+	 * @param squareWidth   the width of the square
+	 * @param squareHeight  the height of the square
+	 * @param configuration the configuration of the screen the icon will be drawn on, null if it is not known
+	 * @return the scaled icon, null if the square is too small or the icon could not be read
+	 */
+	public BufferedImage get(String path, int squareWidth, int squareHeight, GraphicsConfiguration configuration) {
+		int index = getSourceIndex(path);
+		if (index == -1 || squareWidth <= PAD || squareHeight <= PAD) return null;
+
+		long key = ((long) index << 48) | ((long) squareWidth << 24) | squareHeight;
+		BufferedImage scaled = scaledIcons.get(key);
+		if (scaled == null) {
+			scaled = scale(sources.get(index), squareWidth, squareHeight, configuration);
+			if (scaled == null) return null;
+			scaledIcons.put(key, scaled);
+		}
+		return scaled;
+	}
+
+	private int getSourceIndex(String path) {
+		Integer index = pathToIndex.get(path);
+		if (index != null) return index;
+
+		BufferedImage source = null;
+		try {
+			URL url = IconCache.class.getClassLoader().getResource(path);
+			if (url != null) source = ImageIO.read(url);
+		} catch (IOException ex) {
+			System.err.println(ex);
+		}
+
+		if (source == null) {
+			pathToIndex.put(path, -1); // Don't try to read it again
+			return -1;
+		}
+
+		sources.add(source);
+		pathToIndex.put(path, sources.size() - 1);
+		return sources.size() - 1;
+	}
+
+	private static BufferedImage scale(BufferedImage icon, int squareWidth, int squareHeight, GraphicsConfiguration configuration) {
+		int width = icon.getWidth(), height = icon.getHeight();
+		int newWidth, newHeight;
+		// Scale the new width to be proportional to the height
+		newHeight = squareHeight;
+		newWidth = width * newHeight / height; // Given w1/h1 = w2/h2, w2 = h2w1/h1
+
+		// If that is too wide, scale the height to be proportional to the width instead
+		if (newWidth > squareWidth) {
+			newWidth = squareWidth;
+			newHeight = height * newWidth / width;
+		}
+
+		// Add a slight pad
+		newWidth -= PAD;
+		newHeight -= PAD;
+		if (newWidth <= 0 || newHeight <= 0) return null;
+
+		// An image in the screen's own format can be drawn without being converted every time
+		BufferedImage scaled;
+		if (configuration != null) {
+			scaled = configuration.createCompatibleImage(newWidth, newHeight, Transparency.TRANSLUCENT);
+		} else {
+			scaled = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+		}
+
+		Graphics2D g = scaled.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.drawImage(icon, 0, 0, newWidth, newHeight, null);
+		g.dispose();
+		return scaled;
+	}
+}
@@ -0,0 +1,184 @@
+package gui;
+
+import engine.Minefield;
+import engine.Replay;
+import engine.Replayer;
+import exceptions.InvalidSaveException;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+
+/**
+ * Plays a recording on the field, with a small window to change the speed or stop it
+ * <p>
+ * A timer goes off every TICK milliseconds, and makes every move that should have been made by then,
+ * at the fastest speed it makes as many moves as it can in MAX_NANOS_PER_TICK instead
+ */
+class ReplayPlayer implements ActionListener {
+	private static final String[] SPEEDS = {"1x", "2x", "4x", "16x", "Fastest"};
+	private static final double[] SPEED_FACTORS = {1, 2, 4, 16, 0}; // 0 means don't wait between moves
+	private static final int TICK = 15;
+	private static final long MAX_NANOS_PER_TICK = 8_000_000; // Leaves time for painting, so the window doesn't freeze
+	private static final int MOVES_PER_CHUNK = 256; // How many moves are made between looking at the clock
+
+	private final Replay replay;
+	private final Minefield minefield;
+	private final FieldView field;
+	private final Runnable onMove; // Called after every tick that made a move
+
+	private final Timer timer;
+	private final JFrame controls;
+	private final JLabel progressLabel;
+
+	private int next = 0; // The next move to make
+	private double speed = 1;
+	private long startNanos; // When the speed was last changed
+	private long startTime; // The time in the recording when the speed was last changed
+	private long currentTime = 0; // The time in the recording that has been played up to
+
+	/**
+	 * Constructor, nothing is played until start is called
+	 *
+	 * @param replay    the recording
+	 * @param minefield the game made from the seed of the recording, with no moves made yet, it has to be the one the field shows
+	 * @param field     where the game is shown
+	 * @param onMove    called after the moves of every tick, so the rest of the window can catch up
+	 * @param parent    the window to put the controls next to
+	 */
+	ReplayPlayer(Replay replay, Minefield minefield, FieldView field, Runnable onMove, Component parent) {
+		this.replay = replay;
+		this.minefield = minefield;
+		this.field = field;
+		this.onMove = onMove;
+		this.timer = new Timer(TICK, this);
+
+		controls = new JFrame("Replay");
+		controls.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+		controls.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosed(WindowEvent e) {
+				timer.stop();
+			}
+		});
+
+		JPanel panel = new JPanel();
+		panel.setLayout(new GridBagLayout());
+		GridBagConstraints c = new GridBagConstraints();
+
+		progressLabel = new JLabel();
+		progressLabel.setFont(Board.NOTO_MONO);
+		c.fill = GridBagConstraints.HORIZONTAL;
+		c.gridx = 0;
+		c.gridy = 0;
+		c.gridwidth = 2;
+		c.insets = new Insets(10, 10, 5, 10);
+		panel.add(progressLabel, c);
+
+		JComboBox<String> speedBox = new JComboBox<>(SPEEDS);
+		speedBox.setFont(Board.NOTO_MONO);
+		speedBox.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				setSpeed(SPEED_FACTORS[speedBox.getSelectedIndex()]);
+			}
+		});
+		c.gridy = 1;
+		c.gridwidth = 1;
+		c.insets = new Insets(0, 10, 10, 5);
+		panel.add(speedBox, c);
+
+		JButton stopButton = new JButton("Stop");
+		stopButton.setFont(Board.NOTO_MONO);
+		stopButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				controls.dispose();
+			}
+		});
+		c.gridx = 1;
+		c.insets = new Insets(0, 5, 10, 10);
+		panel.add(stopButton, c);
+
+		controls.add(panel);
+		updateProgressLabel();
+		controls.pack();
+		controls.setLocationRelativeTo(parent);
+		controls.setResizable(false);
+	}
+
+	/**
+	 * Shows the controls and starts playing from the first move
+	 */
+	void start() {
+		startNanos = System.nanoTime();
+		startTime = 0;
+		controls.setVisible(true);
+		timer.start();
+	}
+
+	/**
+	 * Stops playing and closes the controls, the field is left as it is
+	 */
+	void stop() {
+		controls.dispose();
+	}
+
+	private void setSpeed(double speed) {
+		// Carry on from where the recording is now, at the new speed
+		this.speed = speed;
+		this.startNanos = System.nanoTime();
+		this.startTime = currentTime;
+	}
+
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		int numMoves = replay.getMoves().size();
+		int from = next;
+
+		try {
+			if (speed == 0) {
+				long deadline = System.nanoTime() + MAX_NANOS_PER_TICK;
+				while (next < numMoves && System.nanoTime() < deadline) {
+					int to = Math.min(numMoves, next + MOVES_PER_CHUNK);
+					Replayer.play(replay, minefield, next, to);
+					next = to;
+				}
+				if (next > 0) currentTime = replay.getTime(next - 1);
+			} else {
+				currentTime = startTime + (long) ((System.nanoTime() - startNanos) / 1e6 * speed);
+				int to = next;
+				while (to < numMoves && replay.getTime(to) <= currentTime) ++to;
+				Replayer.play(replay, minefield, next, to);
+				next = to;
+			}
+		} catch (InvalidSaveException ex) {
+			stop();
+			JOptionPane.showMessageDialog(null, "The replay could not be played\n" + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+
+		if (next - from == 1) {
+			field.repaintChangedCells();
+		} else if (next != from) {
+			field.repaint(); // Only the part that is showing is painted
+		}
+		if (next != from) onMove.run();
+
+		if (next == numMoves) timer.stop();
+		updateProgressLabel();
+	}
+
+	private void updateProgressLabel() {
+		int numMoves = replay.getMoves().size();
+		if (next < numMoves || timer.isRunning()) {
+			progressLabel.setText("Move " + next + " of " + numMoves);
+			return;
+		}
+
+		byte result = Replayer.getResult(minefield);
+		String ending = (result == Replay.WON) ? "won" : (result == Replay.LOST) ? "lost" : "not finished";
+		progressLabel.setText(numMoves + " moves, " + ending + ((result != replay.getResult()) ? " (recorded differently)" : ""));
+		if (controls.isDisplayable()) controls.pack(); // The text is longer now
+	}
+}
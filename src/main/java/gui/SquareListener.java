@@ -0,0 +1,17 @@
+package gui;
+
+import java.awt.event.MouseEvent;
+
+/**
+ * Gets told when a square on a FieldView is clicked
+ */
+public interface SquareListener {
+	/**
+	 * Called when the mouse is pressed and released on the same square, without panning the field
+	 *
+	 * @param e   the release event, use it to tell which button was clicked
+	 * @param row the row of the square
+	 * @param col the column of the square
+	 */
+	void squareClicked(MouseEvent e, int row, int col);
+}
@@ -0,0 +1,57 @@
+package main;
+
+import engine.Replay;
+import engine.Replayer;
+import exceptions.InvalidSaveException;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays every recording it is given without the GUI, and prints the ones that don't end the way they did.
+ * Takes any number of replay files, or directories of them
+ */
+public class ReplayCheck {
+	static void main(String[] args) throws IOException {
+		List<Path> files = new ArrayList<>();
+		for (String arg : args) {
+			Path path = Paths.get(arg);
+			if (Files.isDirectory(path)) {
+				try (DirectoryStream<Path> dir = Files.newDirectoryStream(path, "*" + Replay.EXTENSION)) {
+					for (Path file : dir) {
+						files.add(file);
+					}
+				}
+			} else {
+				files.add(path);
+			}
+		}
+
+		int failed = 0;
+		long numMoves = 0;
+		long start = System.nanoTime();
+		for (Path file : files) {
+			try {
+				Replay replay = Replay.read(file);
+				numMoves += replay.getMoves().size();
+				if (!Replayer.check(replay)) {
+					System.out.println(file + ": ends differently than it was recorded");
+					++failed;
+				}
+			} catch (InvalidSaveException ex) {
+				System.out.println(file + ": " + ex.getMessage());
+				++failed;
+			}
+		}
+		long nanos = System.nanoTime() - start;
+
+		System.out.println(files.size() + " replays, " + numMoves + " moves in " + (nanos / 1_000_000) + " ms ("
+				+ (long) (numMoves / Math.max(nanos / 1e9, 1e-9)) + " moves/s), " + failed + " failed");
+		if (failed > 0) System.exit(1);
+	}
+}
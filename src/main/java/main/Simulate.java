@@ -0,0 +1,62 @@
+package main;
+
+import engine.Bot;
+import engine.HintBot;
+import engine.ProbabilityBot;
+import engine.Simulation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Plays a lot of games with a bot without the GUI, and prints how well it did and how fast.
+ * Takes rows, columns, bombs and the number of games, then optionally the bot ("hint" or "probability"), the number of threads and the seed
+ */
+public class Simulate {
+	static void main(String[] args) throws InterruptedException {
+		if (args.length < 4) {
+			System.out.println("Usage: Simulate rows cols bombs games [hint|probability] [threads] [seed]");
+			System.exit(2);
+		}
+
+		int rows = Integer.parseInt(args[0]);
+		int cols = Integer.parseInt(args[1]);
+		int bombs = Integer.parseInt(args[2]);
+		long games = Long.parseLong(args[3]);
+		String botName = (args.length > 4) ? args[4] : "hint";
+		int threads = (args.length > 5) ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+		long seed = (args.length > 6) ? Long.parseLong(args[6]) : System.nanoTime();
+
+		Supplier<Bot> bots;
+		if (botName.equals("hint")) {
+			bots = new Supplier<Bot>() {
+				@Override
+				public Bot get() {
+					return new HintBot();
+				}
+			};
+		} else if (botName.equals("probability")) {
+			bots = new Supplier<Bot>() {
+				@Override
+				public Bot get() {
+					// Every thread is already busy with its own games, so each bot solves on one thread of its own
+					return new ProbabilityBot(new ForkJoinPool(1));
+				}
+			};
+		} else {
+			System.out.println("Unknown bot \"" + botName + "\", it has to be \"hint\" or \"probability\"");
+			System.exit(2);
+			return;
+		}
+
+		Simulation.Result result = Simulation.run(rows, cols, bombs, games, seed, threads, bots);
+
+		System.out.println(rows + "x" + cols + " with " + bombs + " bombs, " + botName + " bot, " + threads + " threads, seed " + seed);
+		System.out.printf("%d games, %d won (%.2f%%), %.1f moves per game%n",
+				result.getNumGames(), result.getNumWins(), result.getWinRate() * 100, result.getAverageMoves());
+		System.out.printf("%d ms, %.0f games/s%n", result.getNanos() / 1_000_000, result.getGamesPerSecond());
+		System.out.printf("Game time: p50 %.1f us, p90 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n",
+				result.getLatencyPercentile(0.5) / 1e3, result.getLatencyPercentile(0.9) / 1e3, result.getLatencyPercentile(0.99) / 1e3,
+				result.getLatencyPercentile(0.999) / 1e3, result.getLatencyPercentile(1) / 1e3);
+	}
+}
@@ -0,0 +1,124 @@
+package engine;
+
+import exceptions.BombException;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProbabilitySolverTest {
+	private static final double TOLERANCE = 1e-12;
+
+	/**
+	 * Every chance the solver works out on a small board has to be the same as counting every way the bombs can be placed
+	 */
+	@Test
+	void matchesBruteForce() throws BombException {
+		SplittableRandom random = new SplittableRandom(3);
+		int tested = 0;
+		while (tested < 50) {
+			int rows = 5 + random.nextInt(3), cols = 5 + random.nextInt(3);
+			Minefield minefield = new Minefield(rows, cols, 4 + random.nextInt(5), random.nextLong());
+			Grid grid = minefield.getGrid();
+			int startCell = minefield.getStartCell();
+			if (startCell == -1) continue;
+
+			minefield.reveal(grid.row(startCell), grid.col(startCell));
+			for (int k = random.nextInt(3); k > 0; --k) {
+				int row = random.nextInt(rows), col = random.nextInt(cols);
+				if (!minefield.isBomb(row, col)) minefield.reveal(row, col);
+			}
+			if (minefield.isWon() || minefield.getNumHidden() > 24) continue;
+
+			int[] hidden = new int[minefield.getNumHidden()];
+			int numHidden = 0;
+			for (int i = 0; i < grid.size(); ++i) {
+				if (!grid.isBorder(i) && !minefield.isRevealed(i)) hidden[numHidden++] = i;
+			}
+			double[] bombCounts = new double[grid.size()];
+			double ways = enumerate(minefield, hidden, 0, minefield.getNumBombs(), new boolean[grid.size()], bombCounts);
+
+			MineProbabilities probabilities = new ProbabilitySolver(minefield).solve(ForkJoinPool.commonPool());
+			assertNotNull(probabilities);
+			for (int cell : hidden) {
+				assertEquals(bombCounts[cell] / ways, probabilities.getProbability(cell), TOLERANCE, "cell " + cell);
+			}
+			++tested;
+		}
+	}
+
+	/**
+	 * A big board that is mostly revealed has hundreds of components, the ways for all of them together are far out of the range of a double,
+	 * and the chances still have to be there and add up to the number of bombs
+	 */
+	@Test
+	void solvesBigBoards() throws BombException {
+		for (long seed = 1; seed <= 6; ++seed) {
+			Minefield minefield = new Minefield(100, 100, 2000, seed);
+			Grid grid = minefield.getGrid();
+			int startCell = minefield.getStartCell();
+			minefield.reveal(grid.row(startCell), grid.col(startCell));
+
+			// Plays like the hints say until three quarters of the safe cells are revealed, with a lucky guess whenever nothing is certain
+			HintEngine hints = new HintEngine(minefield);
+			int target = minefield.getNumSafeHidden() / 4;
+			int next = 0; // Where to look for the next lucky guess
+			while (minefield.getNumSafeHidden() > target) {
+				int cell = hints.getSafeCell();
+				if (cell == -1) {
+					while (grid.isBorder(next) || minefield.isRevealed(next) || minefield.getNumber(next) == Minefield.BOMB) ++next;
+					cell = next;
+				}
+				minefield.reveal(grid.row(cell), grid.col(cell));
+				hints.update();
+			}
+
+			MineProbabilities probabilities = new ProbabilitySolver(minefield).solve(ForkJoinPool.commonPool());
+			assertNotNull(probabilities, "seed " + seed);
+
+			double expectedBombs = 0;
+			for (int i = 0; i < grid.size(); ++i) {
+				if (!grid.isBorder(i) && !minefield.isRevealed(i)) expectedBombs += probabilities.getProbability(i);
+			}
+			assertEquals(minefield.getNumBombs(), expectedBombs, 1e-6, "seed " + seed);
+		}
+	}
+
+	/**
+	 * Tries every way to put the bombs left in the hidden cells from index on
+	 *
+	 * @param bombCounts for every cell, how many of the ways that fit the numbers have a bomb there, added to
+	 * @return the number of ways that fit the numbers
+	 */
+	private static double enumerate(Minefield minefield, int[] hidden, int index, int bombsLeft, boolean[] bombs, double[] bombCounts) {
+		if (bombsLeft == 0) {
+			if (!fitsNumbers(minefield, bombs)) return 0;
+			for (int cell : hidden) {
+				if (bombs[cell]) ++bombCounts[cell];
+			}
+			return 1;
+		}
+		if (hidden.length - index < bombsLeft) return 0;
+
+		bombs[hidden[index]] = true;
+		double ways = enumerate(minefield, hidden, index + 1, bombsLeft - 1, bombs, bombCounts);
+		bombs[hidden[index]] = false;
+		return ways + enumerate(minefield, hidden, index + 1, bombsLeft, bombs, bombCounts);
+	}
+
+	private static boolean fitsNumbers(Minefield minefield, boolean[] bombs) {
+		Grid grid = minefield.getGrid();
+		for (int i = 0; i < grid.size(); ++i) {
+			if (grid.isBorder(i) || !minefield.isRevealed(i)) continue;
+
+			int count = 0;
+			for (int offset : grid.getNeighborOffsets()) {
+				if (bombs[i + offset]) ++count;
+			}
+			if (count != minefield.getNumber(i)) return false;
+		}
+		return true;
+	}
+}
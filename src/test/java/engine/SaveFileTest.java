@@ -0,0 +1,61 @@
+package engine;
+
+import exceptions.InvalidSaveException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaveFileTest {
+	/**
+	 * A seeded save with the dimensions changed and the checksums made to match, so only the dimensions are wrong
+	 */
+	private static byte[] seededSave(int rows, int cols, int bombs) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SaveFile.write(new Minefield(9, 9, 10, 5L), out);
+		byte[] bytes = out.toByteArray();
+
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		buffer.putInt(5, rows).putInt(9, cols).putInt(13, bombs);
+		CRC32C crc = new CRC32C();
+		crc.update(bytes, 0, 29);
+		buffer.putInt(29, (int) crc.getValue());
+		crc.update(bytes, 29, 4);
+		buffer.putInt(bytes.length - 4, (int) crc.getValue());
+		return bytes;
+	}
+
+	@Test
+	void readsSeededSave() throws IOException, InvalidSaveException {
+		Minefield minefield = SaveFile.read(new ByteArrayInputStream(seededSave(9, 9, 10)));
+		assertEquals(9, minefield.getNumRows());
+		assertEquals(5L, minefield.getSeed());
+	}
+
+	@Test
+	void rejectsSeededSaveTooBigForGrid() throws IOException {
+		// rows * cols fits in an int, but the grid with its border doesn't
+		assertInvalid(seededSave(46000, 46000, 1));
+	}
+
+	@Test
+	void rejectsSeededSaveBiggerThanAnyGame() throws IOException {
+		assertInvalid(seededSave(Minefield.MAX_ROWS + 1, 10, 1));
+		assertInvalid(seededSave(10, Minefield.MAX_COLS + 1, 1));
+	}
+
+	private static void assertInvalid(final byte[] save) {
+		assertThrows(InvalidSaveException.class, new Executable() {
+			@Override
+			public void execute() throws Throwable {
+				SaveFile.read(new ByteArrayInputStream(save));
+			}
+		});
+	}
+}